@@ -0,0 +1,83 @@
+package benchmarks;
+
+import config.ElementState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.By;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of BasePage helpers per call, against the fake driver.
+ * The per-element variants are the baseline for the batched ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BasePageBenchmark {
+    private BenchmarkPage page;
+    private Map<By, String> form;
+
+    @Setup
+    public void setUp(FakeDriverState state) {
+        page = new BenchmarkPage(state.driver);
+        form = new LinkedHashMap<>();
+        state.fields.forEach(field -> form.put(field, "value"));
+    }
+
+    @Benchmark
+    public String getText() {
+        return page.text(FakeDriverState.SEARCH_BUTTON);
+    }
+
+    @Benchmark
+    public void sendKeys() {
+        page.type(FakeDriverState.SEARCH_BOX, "Selenium WebDriver");
+    }
+
+    @Benchmark
+    public void click() {
+        page.press(FakeDriverState.SEARCH_BUTTON);
+    }
+
+    @Benchmark
+    public boolean isDisplayed() {
+        return page.displayed(FakeDriverState.SEARCH_BOX);
+    }
+
+    @Benchmark
+    public void readFieldsOneByOne(FakeDriverState state, Blackhole blackhole) {
+        for (By field : state.fields) {
+            blackhole.consume(page.text(field));
+            blackhole.consume(page.value(field));
+        }
+    }
+
+    @Benchmark
+    public Map<By, ElementState> readFieldsBatched(FakeDriverState state) {
+        return page.read(state.fields);
+    }
+
+    @Benchmark
+    public void fillFieldsOneByOne() {
+        form.forEach(page::type);
+    }
+
+    @Benchmark
+    public void fillFieldsBatched() {
+        page.fill(form);
+    }
+}
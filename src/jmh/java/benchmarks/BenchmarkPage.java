@@ -0,0 +1,45 @@
+package benchmarks;
+
+import config.BasePage;
+import config.ElementState;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page object exposing the protected {@link BasePage} helpers to the benchmarks.
+ */
+public class BenchmarkPage extends BasePage {
+    public BenchmarkPage(WebDriver driver) {
+        super(driver);
+    }
+
+    public String text(By by) {
+        return getText(by);
+    }
+
+    public String value(By by) {
+        return getValue(by);
+    }
+
+    public void type(By by, String text) {
+        sendKeys(by, text);
+    }
+
+    public void press(By by) {
+        click(by);
+    }
+
+    public boolean displayed(By by) {
+        return isDisplayed(by);
+    }
+
+    public Map<By, ElementState> read(List<By> locators) {
+        return readElements(locators);
+    }
+
+    public void fill(Map<By, String> values) {
+        fillForm(values);
+    }
+}
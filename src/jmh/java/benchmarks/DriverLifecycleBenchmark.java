@@ -0,0 +1,74 @@
+package benchmarks;
+
+import config.Browser;
+import config.DriverPool;
+import config.WebDriverConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getting and giving back a session: pooled borrow/reset/release
+ * compared with creating and quitting a session every time, and the full
+ * WebDriverConfig path in remote mode with the fake server acting as Grid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DriverLifecycleBenchmark {
+    private FakeDriverState state;
+    private DriverPool pool;
+
+    @Setup
+    public void setUp(FakeDriverState state) {
+        this.state = state;
+        pool = new DriverPool(Browser.CHROME, this::newSession, 1, 1, 30);
+        System.setProperty("execution.mode", "remote");
+        System.setProperty("grid.urls", state.server.getUrl().toString());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public WebDriver pooledBorrowRelease() {
+        WebDriver driver = pool.borrow();
+        pool.release(driver);
+        return driver;
+    }
+
+    @Benchmark
+    public WebDriver webDriverConfigGetRelease() {
+        WebDriver driver = WebDriverConfig.getDriver(Browser.CHROME);
+        WebDriverConfig.releaseDriver();
+        return driver;
+    }
+
+    @Benchmark
+    public WebDriver createQuit() {
+        WebDriver driver = newSession();
+        driver.quit();
+        return driver;
+    }
+
+    private WebDriver newSession() {
+        return new RemoteWebDriver(state.server.getUrl(), new ChromeOptions());
+    }
+}
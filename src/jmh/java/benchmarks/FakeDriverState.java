@@ -0,0 +1,53 @@
+package benchmarks;
+
+import config.FakeWebDriverServer;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fake W3C WebDriver endpoint plus one RemoteWebDriver session against it.
+ * The page has a search box, a button, a hidden element and {@link #FIELDS} form fields.
+ */
+@State(Scope.Benchmark)
+public class FakeDriverState {
+    public static final int FIELDS = 20;
+    public static final By SEARCH_BOX = By.name("q");
+    public static final By SEARCH_BUTTON = By.cssSelector("input[type='submit']");
+    public static final By HIDDEN = By.id("hidden");
+
+    public FakeWebDriverServer server;
+    public WebDriver driver;
+    public List<By> fields;
+
+    @Setup(Level.Trial)
+    public void start() {
+        server = new FakeWebDriverServer()
+            .withElement(SEARCH_BOX, "input", "", true)
+            .withElement(SEARCH_BUTTON, "input", "Search", true)
+            .withElement(HIDDEN, "div", "hidden", false)
+            .withScreenshotSize(1280, 720);
+        fields = new ArrayList<>();
+        for (int i = 0; i < FIELDS; i++) {
+            By field = By.id("field" + i);
+            fields.add(field);
+            server.withElement(field, "input", "Label " + i, true);
+        }
+        server.start();
+        driver = new RemoteWebDriver(server.getUrl(), new ChromeOptions());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        driver.quit();
+        server.stop();
+    }
+}
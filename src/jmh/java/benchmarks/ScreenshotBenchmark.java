@@ -0,0 +1,31 @@
+package benchmarks;
+
+import config.Browser;
+import config.ScreenshotService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time a test thread spends saving a 1280x720 screenshot; the file write itself is in the background.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+    "-Dscreenshot.dir=target/jmh-screenshots", "-Dscreenshot.retention.max.mb=50",
+    "-Dscreenshot.retention.interval.minutes=1"})
+public class ScreenshotBenchmark {
+
+    @Benchmark
+    public Path capture(FakeDriverState state) {
+        return ScreenshotService.capture(state.driver, "benchmark", Browser.CHROME);
+    }
+}
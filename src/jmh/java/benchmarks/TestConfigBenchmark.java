@@ -0,0 +1,37 @@
+package benchmarks;
+
+import config.TestConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of TestConfig lookups, which sit on every driver creation and wait.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestConfigBenchmark {
+
+    @Benchmark
+    public String getProperty() {
+        return TestConfig.getProperty("base.url");
+    }
+
+    @Benchmark
+    public String getMissingPropertyWithDefault() {
+        return TestConfig.getProperty("benchmark.missing", "default");
+    }
+
+    @Benchmark
+    public int getIntProperty() {
+        return TestConfig.getIntProperty("pool.max", 4);
+    }
+}
@@ -0,0 +1,308 @@
+package config;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collects per-action latencies of the page-object layer and driver lifecycle.
+ * Samples are tagged by test, component (page-object class), action, locator and phase
+ * ("wait" or "command"), aggregated into {@link LatencyHistogram}s and written at the
+ * end of the run as JSON and Prometheus text format under "metrics.dir".
+ * Plain per-test counters (network requests, cache hits) are exported alongside.
+ */
+public class ActionMetrics {
+    public static final String PHASE_WAIT = "wait";
+    public static final String PHASE_COMMAND = "command";
+
+    private static final Logger logger = LoggerFactory.getLogger(ActionMetrics.class);
+    private static final boolean enabled = TestConfig.getBooleanProperty("metrics.enabled", true);
+    private static final Map<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<Key, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+
+    static {
+        if (enabled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(ActionMetrics::export));
+        }
+    }
+
+    private ActionMetrics() {
+    }
+
+    /**
+     * Sets the test the current thread is running; samples recorded afterwards are tagged with it.
+     * @param testId Test identifier, or null to clear it
+     */
+    public static void setCurrentTest(String testId) {
+        if (testId == null) {
+            currentTest.remove();
+        } else {
+            currentTest.set(testId);
+        }
+    }
+
+    public static String getCurrentTest() {
+        return currentTest.get();
+    }
+
+    /**
+     * Records one sample for the current test.
+     * @param component Page-object class or framework component
+     * @param action Action name, e.g. "click"
+     * @param locator Locator or other target, may be null
+     * @param phase {@link #PHASE_WAIT}, {@link #PHASE_COMMAND} or another phase name
+     * @param nanos Duration in nanoseconds
+     */
+    public static void record(String component, String action, Object locator, String phase, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        Key key = new Key(Objects.toString(currentTest.get(), ""), component, action,
+            Objects.toString(locator, ""), phase);
+        histograms.computeIfAbsent(key, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Adds to a counter of the current test, e.g. network requests or cache hits.
+     * @param component Framework component the counter belongs to
+     * @param name Counter name
+     * @param delta Amount to add
+     */
+    public static void count(String component, String name, long delta) {
+        if (!enabled || delta == 0) {
+            return;
+        }
+        Key key = new Key(Objects.toString(currentTest.get(), ""), component, name, "", "");
+        counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Gets the total of a counter over all tests.
+     * @param component Framework component the counter belongs to
+     * @param name Counter name
+     * @return Sum of all increments
+     */
+    public static long getCount(String component, String name) {
+        return counters.entrySet().stream()
+            .filter(entry -> entry.getKey().component.equals(component) && entry.getKey().action.equals(name))
+            .mapToLong(entry -> entry.getValue().sum())
+            .sum();
+    }
+
+    /**
+     * Gets the histograms recorded for one test, keyed "component.action locator (phase)".
+     * @param testId Test identifier
+     * @return Histograms sorted by key
+     */
+    static Map<String, LatencyHistogram> getHistograms(String testId) {
+        Map<String, LatencyHistogram> result = new TreeMap<>();
+        histograms.forEach((key, histogram) -> {
+            if (key.test.equals(testId)) {
+                String locator = key.locator.isEmpty() ? "" : " " + key.locator;
+                result.put(key.component + "." + key.action + locator + " (" + key.phase + ")", histogram);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs and times a step.
+     * @param component Page-object class or framework component
+     * @param action Action name
+     * @param locator Locator or other target, may be null
+     * @param phase Phase name
+     * @param step Step to run
+     * @return Result of the step
+     */
+    public static <T> T time(String component, String action, Object locator, String phase, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            record(component, action, locator, phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs and times a step without a result.
+     * @param component Page-object class or framework component
+     * @param action Action name
+     * @param locator Locator or other target, may be null
+     * @param phase Phase name
+     * @param step Step to run
+     */
+    public static void time(String component, String action, Object locator, String phase, Runnable step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+        } finally {
+            record(component, action, locator, phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Writes all histograms as "actions.json" and "actions.prom". Called from a shutdown hook.
+     */
+    public static void export() {
+        if (histograms.isEmpty() && counters.isEmpty()) {
+            return;
+        }
+        Path dir = Paths.get(TestConfig.getProperty("metrics.dir", "test-output/metrics"));
+        List<Map.Entry<Key, LatencyHistogram>> entries = new ArrayList<>(histograms.entrySet());
+        entries.sort(Comparator.comparing(entry -> entry.getKey().toString()));
+        List<Map.Entry<Key, LongAdder>> counterEntries = new ArrayList<>(counters.entrySet());
+        counterEntries.sort(Comparator.comparing(entry -> entry.getKey().toString()));
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("actions.json"), toJson(entries, counterEntries).getBytes(StandardCharsets.UTF_8));
+            Files.write(dir.resolve("actions.prom"), toPrometheus(entries, counterEntries).getBytes(StandardCharsets.UTF_8));
+            logger.info("Action metrics written to {}", dir.toAbsolutePath());
+            long lookups = getCount(ElementCache.COMPONENT, ElementCache.HITS)
+                + getCount(ElementCache.COMPONENT, ElementCache.MISSES);
+            if (lookups > 0) {
+                logger.info("Element cache hit rate {}% of {} lookups, {} find round trips saved",
+                    Math.round(ElementCache.getHitRate() * 100), lookups,
+                    getCount(ElementCache.COMPONENT, ElementCache.SAVED_ROUND_TRIPS));
+            }
+        } catch (IOException e) {
+            logger.error("Failed to write action metrics: {}", e.getMessage());
+        }
+    }
+
+    private static String toJson(List<Map.Entry<Key, LatencyHistogram>> entries,
+                                 List<Map.Entry<Key, LongAdder>> counterEntries) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<Key, LatencyHistogram> entry : entries) {
+            Key key = entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("test", key.test);
+            row.put("component", key.component);
+            row.put("action", key.action);
+            row.put("locator", key.locator);
+            row.put("phase", key.phase);
+            row.put("count", histogram.getCount());
+            row.put("sumMillis", histogram.getSumNanos() / 1e6);
+            row.put("maxMillis", histogram.getMaxNanos() / 1e6);
+            row.put("p50Millis", histogram.getPercentileNanos(50) / 1e6);
+            row.put("p90Millis", histogram.getPercentileNanos(90) / 1e6);
+            row.put("p99Millis", histogram.getPercentileNanos(99) / 1e6);
+            rows.add(row);
+        }
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("generatedAt", Instant.now().toString());
+        document.put("environment", TestConfig.getEnvironment());
+        document.put("actions", rows);
+        List<Map<String, Object>> counterRows = new ArrayList<>();
+        for (Map.Entry<Key, LongAdder> entry : counterEntries) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("test", entry.getKey().test);
+            row.put("component", entry.getKey().component);
+            row.put("name", entry.getKey().action);
+            row.put("value", entry.getValue().sum());
+            counterRows.add(row);
+        }
+        document.put("counters", counterRows);
+        return new Json().toJson(document);
+    }
+
+    private static String toPrometheus(List<Map.Entry<Key, LatencyHistogram>> entries,
+                                       List<Map.Entry<Key, LongAdder>> counterEntries) {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP selenium_action_duration_seconds Duration of page-object actions and driver lifecycle steps\n");
+        out.append("# TYPE selenium_action_duration_seconds histogram\n");
+        for (Map.Entry<Key, LatencyHistogram> entry : entries) {
+            String labels = entry.getKey().toLabels();
+            long[] buckets = entry.getValue().getBucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+                cumulative += buckets[i];
+                out.append("selenium_action_duration_seconds_bucket{").append(labels)
+                    .append(",le=\"").append(LatencyHistogram.getUpperBoundNanos(i) / 1e9).append("\"} ")
+                    .append(cumulative).append('\n');
+            }
+            cumulative += buckets[LatencyHistogram.BUCKETS];
+            out.append("selenium_action_duration_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ")
+                .append(cumulative).append('\n');
+            out.append("selenium_action_duration_seconds_sum{").append(labels).append("} ")
+                .append(entry.getValue().getSumNanos() / 1e9).append('\n');
+            out.append("selenium_action_duration_seconds_count{").append(labels).append("} ")
+                .append(entry.getValue().getCount()).append('\n');
+        }
+        out.append("# HELP selenium_framework_events_total Framework event counters per test\n");
+        out.append("# TYPE selenium_framework_events_total counter\n");
+        for (Map.Entry<Key, LongAdder> entry : counterEntries) {
+            Key key = entry.getKey();
+            out.append("selenium_framework_events_total{test=\"").append(Key.escape(key.test))
+                .append("\",component=\"").append(Key.escape(key.component))
+                .append("\",name=\"").append(Key.escape(key.action)).append("\"} ")
+                .append(entry.getValue().sum()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static final class Key {
+        private final String test;
+        private final String component;
+        private final String action;
+        private final String locator;
+        private final String phase;
+
+        private Key(String test, String component, String action, String locator, String phase) {
+            this.test = test;
+            this.component = component;
+            this.action = action;
+            this.locator = locator;
+            this.phase = phase;
+        }
+
+        private String toLabels() {
+            return String.format("test=\"%s\",component=\"%s\",action=\"%s\",locator=\"%s\",phase=\"%s\"",
+                escape(test), escape(component), escape(action), escape(locator), escape(phase));
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return test.equals(key.test) && component.equals(key.component) && action.equals(key.action)
+                && locator.equals(key.locator) && phase.equals(key.phase);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(test, component, action, locator, phase);
+        }
+
+        @Override
+        public String toString() {
+            return toLabels();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Per-step wait timeouts learned from how long each (page object, action, locator)
+ * actually took to become ready in earlier runs.
+ * The timeout is a high percentile of the recorded history times a safety factor,
+ * bounded by "timeout.adaptive.floor" and "timeout.explicit" (seconds). Steps with too
+ * little history get the full "timeout.explicit". History is kept per environment in
+ * "timeout.history.dir" and written at the end of the run. The samples of this run are merged into
+ * the file as it is then, under a file lock, so parallel forks and agents add to the same history.
+ */
+public class AdaptiveTimeouts {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveTimeouts.class);
+    private static final int MAX_SAMPLES = 50;
+    private static final AdaptiveTimeouts instance = new AdaptiveTimeouts();
+
+    private final Map<String, Deque<Long>> history = new ConcurrentHashMap<>();
+    // Samples of this run, guarded like history by the key's history deque
+    private final Map<String, Deque<Long>> recorded = new ConcurrentHashMap<>();
+    private final Path historyFile;
+    private final boolean enabled;
+    private final Duration floor;
+    private final Duration ceiling;
+    private final int minSamples;
+    private final double percentile;
+    private final double factor;
+
+    private AdaptiveTimeouts() {
+        enabled = TestConfig.getBooleanProperty("timeout.adaptive.enabled", true);
+        floor = Duration.ofMillis(Math.round(
+            Double.parseDouble(TestConfig.getProperty("timeout.adaptive.floor", "2")) * 1000));
+        ceiling = Duration.ofSeconds(TestConfig.getLongProperty("timeout.explicit", BasePage.TIMEOUT));
+        minSamples = TestConfig.getIntProperty("timeout.adaptive.min.samples", 5);
+        percentile = Double.parseDouble(TestConfig.getProperty("timeout.adaptive.percentile", "99"));
+        factor = Double.parseDouble(TestConfig.getProperty("timeout.adaptive.factor", "3"));
+        historyFile = Paths.get(TestConfig.getProperty("timeout.history.dir", "test-output/history"))
+            .resolve("timeouts-" + TestConfig.getEnvironment() + ".properties");
+        if (enabled) {
+            load();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::save));
+        }
+    }
+
+    public static AdaptiveTimeouts getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets the upper bound every wait is limited to ("timeout.explicit").
+     * @return Maximum wait time
+     */
+    public Duration getCeiling() {
+        return ceiling;
+    }
+
+    /**
+     * Gets the timeout for one wait.
+     * @param page Page-object class name
+     * @param action Action name, e.g. "click"
+     * @param locator Locator waited for
+     * @return Timeout between the floor and the ceiling
+     */
+    public Duration timeoutFor(String page, String action, Object locator) {
+        if (!enabled) {
+            return ceiling;
+        }
+        Deque<Long> samples = history.get(key(page, action, locator));
+        long[] sorted;
+        if (samples == null) {
+            return ceiling;
+        }
+        synchronized (samples) {
+            if (samples.size() < minSamples) {
+                return ceiling;
+            }
+            sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(sorted.length * percentile / 100.0) - 1);
+        long millis = Math.round(sorted[Math.max(index, 0)] * factor);
+        return Duration.ofMillis(Math.max(floor.toMillis(), Math.min(ceiling.toMillis(), millis)));
+    }
+
+    /**
+     * Records how long a successful wait took.
+     * @param page Page-object class name
+     * @param action Action name
+     * @param locator Locator waited for
+     * @param elapsed Time until the condition held
+     */
+    public void record(String page, String action, Object locator, Duration elapsed) {
+        if (!enabled) {
+            return;
+        }
+        String key = key(page, action, locator);
+        Deque<Long> samples = history.computeIfAbsent(key, k -> new ArrayDeque<>());
+        synchronized (samples) {
+            add(samples, elapsed.toMillis());
+            add(recorded.computeIfAbsent(key, k -> new ArrayDeque<>()), elapsed.toMillis());
+        }
+    }
+
+    private static void add(Deque<Long> samples, long millis) {
+        samples.addLast(millis);
+        while (samples.size() > MAX_SAMPLES) {
+            samples.removeFirst();
+        }
+    }
+
+    private static String key(String page, String action, Object locator) {
+        return page + "|" + action + "|" + locator;
+    }
+
+    private void load() {
+        history.putAll(read(historyFile));
+    }
+
+    /**
+     * Reads a history file, skipping entries that do not parse, e.g. after a hand edit or a merge conflict.
+     * @return Samples per key; empty when the file is missing or unreadable
+     */
+    private static Map<String, Deque<Long>> read(Path file) {
+        Map<String, Deque<Long>> samplesByKey = new HashMap<>();
+        if (!Files.exists(file)) {
+            return samplesByKey;
+        }
+        Properties stored = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            stored.load(input);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Ignoring unreadable timeout history {}: {}", file, e.getMessage());
+            return samplesByKey;
+        }
+        stored.forEach((key, value) -> {
+            Deque<Long> samples = new ArrayDeque<>();
+            try {
+                for (String sample : value.toString().split(",")) {
+                    if (!sample.isBlank()) {
+                        add(samples, Long.parseLong(sample.trim()));
+                    }
+                }
+                samplesByKey.put(key.toString(), samples);
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring malformed timeout history of {} in {}: {}", key, file, e.getMessage());
+            }
+        });
+        return samplesByKey;
+    }
+
+    /**
+     * Appends the samples of this run to the history as it is on disk now. The lock on a sibling
+     * ".lock" file keeps another JVM from replacing the file between the read and the move.
+     */
+    private void save() {
+        if (recorded.values().stream().allMatch(Deque::isEmpty)) {
+            return;
+        }
+        Path lockFile = historyFile.resolveSibling(historyFile.getFileName() + ".lock");
+        try {
+            Files.createDirectories(historyFile.getParent());
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Released when the channel is closed
+                channel.lock();
+                Map<String, Deque<Long>> merged = read(historyFile);
+                recorded.forEach((key, samples) -> {
+                    synchronized (history.get(key)) {
+                        Deque<Long> all = merged.computeIfAbsent(key, k -> new ArrayDeque<>());
+                        samples.forEach(sample -> add(all, sample));
+                        // Merged once, even if the history is saved again
+                        samples.clear();
+                    }
+                });
+                Properties stored = new Properties();
+                merged.forEach((key, samples) -> stored.setProperty(key,
+                    samples.stream().map(String::valueOf).collect(Collectors.joining(","))));
+                Path tmp = Files.createTempFile(historyFile.getParent(), "timeouts", ".tmp");
+                try (OutputStream output = Files.newOutputStream(tmp)) {
+                    stored.store(output, "Wait durations in ms per page|action|locator, most recent last");
+                }
+                Files.move(tmp, historyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write timeout history {}: {}", historyFile, e.getMessage());
+        }
+    }
+}
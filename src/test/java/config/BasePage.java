@@ -6,94 +6,431 @@ import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class BasePage {
+    private static final String READ_ELEMENTS_SCRIPT = ScriptLocator.FIND_FUNCTION
+        + "return arguments[0].map(function(l) {"
+        + "  var e = findBy(l);"
+        + "  if (!e) return null;"
+        + "  var shown = isShown(e);"
+        + "  return {text: shown ? e.innerText : '',"
+        + "          value: 'value' in e ? String(e.value) : e.getAttribute('value'),"
+        + "          displayed: shown};"
+        + "});";
+    private static final String FILL_FORM_SCRIPT = ScriptLocator.FIND_FUNCTION
+        + "var fields = arguments[0], failed = [];"
+        + "var skipTypes = ['checkbox', 'radio', 'file', 'submit', 'button', 'image', 'reset'];"
+        + "for (var i = 0; i < fields.length; i++) {"
+        + "  var e = findBy(fields[i].locator), v = fields[i].value;"
+        + "  if (!isShown(e) || e.disabled || e.readOnly) { failed.push(i); continue; }"
+        + "  var tag = e.tagName.toLowerCase();"
+        + "  if (tag === 'select') {"
+        + "    if (!Array.prototype.some.call(e.options, function(o) { return o.value === v; })) {"
+        + "      failed.push(i); continue;"
+        + "    }"
+        + "    e.value = v;"
+        + "  } else if (tag === 'textarea' || (tag === 'input' && skipTypes.indexOf(e.type) < 0)) {"
+        + "    var proto = tag === 'input' ? HTMLInputElement.prototype : HTMLTextAreaElement.prototype;"
+        + "    e.focus();"
+        + "    Object.getOwnPropertyDescriptor(proto, 'value').set.call(e, v);"
+        + "    e.dispatchEvent(new Event('input', {bubbles: true}));"
+        + "  } else { failed.push(i); continue; }"
+        + "  e.dispatchEvent(new Event('change', {bubbles: true}));"
+        + "}"
+        + "return failed;";
+    // The state a lookup waits for, checked on a cached element in one round trip
+    private static final String CACHED_STATE_SCRIPT = ScriptLocator.FIND_FUNCTION
+        + "return isShown(arguments[0]) && !(arguments[1] && arguments[0].disabled);";
+    private static final String MASK_RECTS_SCRIPT =
+        "var ratio = window.devicePixelRatio || 1;"
+        + "return arguments[0].map(function(e) {"
+        + "  var r = e.getBoundingClientRect();"
+        + "  return [r.left * ratio, r.top * ratio, r.width * ratio, r.height * ratio];"
+        + "});";
+
     protected WebDriver driver;
     protected WebDriverWait wait;
+    protected ScriptWait waits;
+    protected AdaptiveTimeouts timeouts;
     protected Actions actions;
+    private final ElementCache elements = new ElementCache();
+    private PerformanceSample performance;
+    private Double readyAt;
+    /** Wait timeout in seconds used when the environment does not set "timeout.explicit". */
     protected static final int TIMEOUT = 10;
+    private static final Duration BUSY_SAMPLE = Duration.ofMillis(500);
 
     public BasePage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(TIMEOUT));
+        this.timeouts = AdaptiveTimeouts.getInstance();
+        this.wait = new WebDriverWait(driver, timeouts.getCeiling());
+        this.waits = new ScriptWait(driver);
         this.actions = new Actions(driver);
+        NetworkPolicy policy = getClass().getAnnotation(NetworkPolicy.class);
+        if (policy != null) {
+            NetworkControl.apply(driver, policy);
+        }
+    }
+
+    // Navigation Methods
+    protected void navigateTo(String url) {
+        elements.clear();
+        String previous = PageReadiness.currentDocument(driver);
+        command("navigateTo", url, () -> driver.get(url));
+        awaitReady(previous);
+        captureNavigation("navigateTo");
+    }
+
+    protected void refreshPage() {
+        elements.clear();
+        String previous = PageReadiness.currentDocument(driver);
+        command("refreshPage", null, () -> driver.navigate().refresh());
+        awaitReady(previous);
+        captureNavigation("refreshPage");
+    }
+
+    protected void navigateBack() {
+        elements.clear();
+        String previous = PageReadiness.currentDocument(driver);
+        command("navigateBack", null, () -> driver.navigate().back());
+        awaitReady(previous);
+        captureNavigation("navigateBack");
+    }
+
+    /**
+     * Declares when this page counts as loaded. Navigation returns as soon as this holds,
+     * which with the "eager" or "none" page-load strategy is before the load event.
+     * Page objects override it with their key locators, a readiness flag or network idle.
+     * @return Readiness of the page
+     */
+    protected PageReadiness readiness() {
+        return PageReadiness.domContentLoaded();
+    }
+
+    /**
+     * Waits until the page is ready, bounded by "timeout.pageload".
+     * Called by the navigation methods; call it after a step that loads this page another way.
+     */
+    protected void awaitReady() {
+        awaitReady(null);
+    }
+
+    private void awaitReady(String previousDocument) {
+        long start = System.nanoTime();
+        try {
+            readiness().await(driver, waits, Duration.ofSeconds(TestConfig.getLongProperty("timeout.pageload", 30)),
+                previousDocument);
+            // Taken now rather than at the capture, so READY is when readiness was met even when
+            // a budget is only verified after later steps
+            readyAt = PagePerformance.now(driver);
+        } finally {
+            ActionMetrics.record(getClass().getSimpleName(), "awaitReady", null, ActionMetrics.PHASE_WAIT,
+                System.nanoTime() - start);
+        }
+    }
+
+    // Performance
+    /**
+     * Captures the browser's performance metrics after a key interaction of this page.
+     * Resources are counted from the previous capture on, so the sample shows what the interaction loaded.
+     * @param step Name of the interaction, e.g. "search"
+     * @return Sample, or null when the browser cannot report it
+     */
+    protected PerformanceSample capturePerformance(String step) {
+        return capturePerformance(step, null);
+    }
+
+    private PerformanceSample capturePerformance(String step, Double ready) {
+        double since = performance == null ? 0 : performance.getMetric(PerformanceSample.READY);
+        PerformanceSample sample = PagePerformance.capture(driver, getClass().getSimpleName(), step, since, ready);
+        if (sample != null) {
+            performance = sample;
+        }
+        return sample;
+    }
+
+    /**
+     * Fails when a metric of the latest sample exceeds its budget, capturing a sample if there is none yet.
+     * A sample captured here takes READY from the moment this page's readiness was last met.
+     * @param metric Metric name, see {@link PerformanceSample}
+     * @param budget Largest acceptable value, milliseconds for times
+     */
+    protected void verifyBudget(String metric, double budget) {
+        PerformanceSample sample = performance != null ? performance : capturePerformance("verifyBudget", readyAt);
+        Double value = sample == null ? null : sample.getMetric(metric);
+        if (value == null) {
+            throw new AssertionError(getClass().getSimpleName() + ": the browser did not report " + metric);
+        }
+        if (value > budget) {
+            throw new AssertionError(String.format("%s: %s of %.0f exceeds the budget of %.0f (%s)",
+                getClass().getSimpleName(), metric, value, budget, sample.getUrl()));
+        }
+    }
+
+    // Visual comparison
+    /**
+     * Declares the regions of this page that change between runs, e.g. dates, ads or animations.
+     * They are ignored by {@link #verifyVisual(String)}.
+     * @return Locators of the ignored elements
+     */
+    protected List<By> visualMasks() {
+        return List.of();
+    }
+
+    /**
+     * Fails when the viewport differs from its stored baseline by more than "visual.threshold.percent",
+     * or when there is no baseline yet; run with "visual.update=true" to record baselines.
+     * @param checkpoint Name of the state being checked, e.g. "results"
+     */
+    protected void verifyVisual(String checkpoint) {
+        String name = getClass().getSimpleName() + "_" + checkpoint;
+        List<java.awt.Rectangle> masks = command("visualMasks", null, this::readVisualMasks);
+        byte[] png = command("screenshot", null, () -> ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES));
+        VisualComparator.Result result = VisualComparator.compare(png, name, sessionBrowser(), masks);
+        if (!result.isMatch()) {
+            throw new AssertionError("Visual check failed for " + result + ", "
+                + (result.isBaselineMissing() ? "screenshot" : "diff") + " at " + result.getDiffFile().toAbsolutePath());
+        }
+    }
+
+    /**
+     * Browser of this page's session; sessions outside the pool, e.g. LoadRunner's, are read from their capabilities.
+     */
+    private Browser sessionBrowser() {
+        Browser browser = WebDriverConfig.getBrowser();
+        if (browser == null && driver instanceof HasCapabilities) {
+            // "MicrosoftEdge" and "msedge" both contain the value of EDGE
+            String name = ((HasCapabilities) driver).getCapabilities().getBrowserName().toLowerCase();
+            for (Browser candidate : Browser.values()) {
+                if (name.contains(candidate.getValue())) {
+                    return candidate;
+                }
+            }
+        }
+        if (browser == null) {
+            throw new IllegalStateException("Cannot tell the browser of " + getClass().getSimpleName() + "'s session");
+        }
+        return browser;
+    }
+
+    private List<java.awt.Rectangle> readVisualMasks() {
+        List<WebElement> masked = new ArrayList<>();
+        for (By by : visualMasks()) {
+            masked.addAll(driver.findElements(by));
+        }
+        if (masked.isEmpty()) {
+            return List.of();
+        }
+        List<java.awt.Rectangle> masks = new ArrayList<>();
+        for (Object rect : (List<?>) ((JavascriptExecutor) driver).executeScript(MASK_RECTS_SCRIPT, masked)) {
+            List<?> r = (List<?>) rect;
+            // Rounded outwards so partly covered pixels are masked too
+            int x = (int) Math.floor(((Number) r.get(0)).doubleValue());
+            int y = (int) Math.floor(((Number) r.get(1)).doubleValue());
+            masks.add(new java.awt.Rectangle(x, y,
+                (int) Math.ceil(((Number) r.get(0)).doubleValue() + ((Number) r.get(2)).doubleValue()) - x,
+                (int) Math.ceil(((Number) r.get(1)).doubleValue() + ((Number) r.get(3)).doubleValue()) - y));
+        }
+        return masks;
+    }
+
+    private void captureNavigation(String action) {
+        performance = null;
+        if (PagePerformance.isEnabled()) {
+            capturePerformance(action, readyAt);
+        }
     }
 
     // Click Methods
     protected void click(By by) {
-        wait.until(ExpectedConditions.elementToBeClickable(by)).click();
+        withElement("click", by, Lookup.CLICKABLE, element -> {
+            element.click();
+            return null;
+        });
     }
 
     protected void clickWithJS(By by) {
-        WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(by));
-        ((JavascriptExecutor) driver).executeScript("arguments[0].click();", element);
+        withElement("clickWithJS", by, Lookup.PRESENT,
+            element -> ((JavascriptExecutor) driver).executeScript("arguments[0].click();", element));
     }
 
     // Type Methods
     protected void sendKeys(By by, String text) {
-        WebElement element = wait.until(ExpectedConditions.visibilityOfElementLocated(by));
-        element.clear();
-        element.sendKeys(text);
+        withElement("sendKeys", by, Lookup.VISIBLE, element -> {
+            element.clear();
+            element.sendKeys(text);
+            return null;
+        });
     }
 
     protected void sendKeys(By by, Keys key) {
-        wait.until(ExpectedConditions.visibilityOfElementLocated(by)).sendKeys(key);
+        withElement("sendKeys", by, Lookup.VISIBLE, element -> {
+            element.sendKeys(key);
+            return null;
+        });
     }
 
     // Mouse Actions
     protected void mouseHover(By by) {
-        WebElement element = wait.until(ExpectedConditions.visibilityOfElementLocated(by));
-        actions.moveToElement(element).perform();
+        withElement("mouseHover", by, Lookup.VISIBLE, element -> {
+            actions.moveToElement(element).perform();
+            return null;
+        });
     }
 
     protected void dragAndDrop(By source, By target) {
-        WebElement sourceElement = wait.until(ExpectedConditions.visibilityOfElementLocated(source));
-        WebElement targetElement = wait.until(ExpectedConditions.visibilityOfElementLocated(target));
-        actions.dragAndDrop(sourceElement, targetElement).perform();
+        WebElement sourceElement = awaitVisible("dragAndDrop", source);
+        WebElement targetElement = awaitVisible("dragAndDrop", target);
+        command("dragAndDrop", source, () -> actions.dragAndDrop(sourceElement, targetElement).perform());
     }
 
     // Dropdown Methods
     protected void selectByVisibleText(By by, String text) {
-        Select select = new Select(wait.until(ExpectedConditions.visibilityOfElementLocated(by)));
-        select.selectByVisibleText(text);
+        withElement("selectByVisibleText", by, Lookup.VISIBLE, element -> {
+            new Select(element).selectByVisibleText(text);
+            return null;
+        });
     }
 
     protected void selectByValue(By by, String value) {
-        Select select = new Select(wait.until(ExpectedConditions.visibilityOfElementLocated(by)));
-        select.selectByValue(value);
+        withElement("selectByValue", by, Lookup.VISIBLE, element -> {
+            new Select(element).selectByValue(value);
+            return null;
+        });
     }
 
     // Wait Methods
     protected void waitForVisibility(By by) {
-        wait.until(ExpectedConditions.visibilityOfElementLocated(by));
+        awaitVisible("waitForVisibility", by);
     }
 
     protected void waitForInvisibility(By by) {
-        wait.until(ExpectedConditions.invisibilityOfElementLocated(by));
+        await("waitForInvisibility", by, timeout -> {
+            waits.untilInvisible(by, timeout);
+            return Boolean.TRUE;
+        });
     }
 
     protected void waitForClickable(By by) {
-        wait.until(ExpectedConditions.elementToBeClickable(by));
+        awaitClickable("waitForClickable", by);
     }
 
     // Get Methods
     protected String getText(By by) {
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(by)).getText();
+        // Hidden elements have no text, so an empty cached read is repeated after the visibility wait
+        return withElement("getText", by, Lookup.VISIBLE, WebElement::getText, text -> !text.isEmpty());
     }
 
     protected String getValue(By by) {
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(by)).getAttribute("value");
+        WebElement element = awaitVisible("getValue", by);
+        return command("getValue", by, () -> element.getAttribute("value"));
     }
 
     protected List<WebElement> getElements(By by) {
-        return wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(by));
+        awaitPresent("getElements", by);
+        return command("getElements", by, () -> driver.findElements(by));
+    }
+
+    // Batch Methods
+    /**
+     * Reads text, value and visibility of several elements in one script round trip.
+     * Does not wait: elements that are not in the DOM yet are reported as absent.
+     * Locators that cannot run as a script (e.g. link text) are read one by one.
+     * @param locators Elements to read
+     * @return State per locator, in the order given
+     */
+    protected Map<By, ElementState> readElements(List<By> locators) {
+        Map<By, ElementState> states = new LinkedHashMap<>();
+        List<By> scripted = new ArrayList<>();
+        List<Object> arguments = new ArrayList<>();
+        for (By by : locators) {
+            states.put(by, null);
+            if (ScriptLocator.isSupported(by)) {
+                scripted.add(by);
+                arguments.add(ScriptLocator.toScriptArgument(by));
+            }
+        }
+
+        if (!scripted.isEmpty()) {
+            List<?> results = (List<?>) command("readElements", scripted.size() + " locators",
+                () -> ((JavascriptExecutor) driver).executeScript(READ_ELEMENTS_SCRIPT, arguments));
+            for (int i = 0; i < scripted.size(); i++) {
+                Map<?, ?> result = (Map<?, ?>) results.get(i);
+                states.put(scripted.get(i), result == null
+                    ? ElementState.absent()
+                    : new ElementState(true, (String) result.get("text"), (String) result.get("value"),
+                        Boolean.TRUE.equals(result.get("displayed"))));
+            }
+        }
+
+        states.replaceAll((by, state) -> state != null ? state : readElement(by));
+        return states;
+    }
+
+    private ElementState readElement(By by) {
+        List<WebElement> found = driver.findElements(by);
+        if (found.isEmpty()) {
+            return ElementState.absent();
+        }
+        WebElement element = found.get(0);
+        return new ElementState(true, element.getText(), element.getAttribute("value"), element.isDisplayed());
+    }
+
+    /**
+     * Fills several form fields in one script round trip.
+     * Text inputs and textareas get their value set followed by input/change events;
+     * selects are matched by option value. Fields the script cannot fill (hidden, disabled,
+     * checkboxes, file inputs, non-script locators) fall back to {@link #sendKeys(By, String)}
+     * or {@link #selectByValue(By, String)}.
+     * Scripted fields are filled first, fallback fields afterwards.
+     * @param values Value per field locator
+     */
+    protected void fillForm(Map<By, String> values) {
+        List<Map.Entry<By, String>> scripted = new ArrayList<>();
+        List<Map.Entry<By, String>> fallback = new ArrayList<>();
+        List<Object> arguments = new ArrayList<>();
+        for (Map.Entry<By, String> field : values.entrySet()) {
+            if (ScriptLocator.isSupported(field.getKey())) {
+                scripted.add(field);
+                Map<String, Object> argument = new LinkedHashMap<>();
+                argument.put("locator", ScriptLocator.toScriptArgument(field.getKey()));
+                argument.put("value", field.getValue());
+                arguments.add(argument);
+            } else {
+                fallback.add(field);
+            }
+        }
+
+        if (!scripted.isEmpty()) {
+            List<?> failed = (List<?>) command("fillForm", scripted.size() + " fields",
+                () -> ((JavascriptExecutor) driver).executeScript(FILL_FORM_SCRIPT, arguments));
+            for (Object index : failed) {
+                fallback.add(scripted.get(((Number) index).intValue()));
+            }
+        }
+
+        for (Map.Entry<By, String> field : fallback) {
+            WebElement element = awaitVisible("fillForm", field.getKey());
+            if ("select".equalsIgnoreCase(element.getTagName())) {
+                new Select(element).selectByValue(field.getValue());
+            } else {
+                element.clear();
+                element.sendKeys(field.getValue());
+            }
+        }
     }
 
     // Verification Methods
     protected boolean isDisplayed(By by) {
         try {
-            return wait.until(ExpectedConditions.visibilityOfElementLocated(by)).isDisplayed();
+            return withElement("isDisplayed", by, Lookup.VISIBLE, WebElement::isDisplayed, shown -> shown);
         } catch (TimeoutException | NoSuchElementException e) {
             return false;
         }
@@ -101,7 +438,8 @@ public class BasePage {
 
     protected boolean isEnabled(By by) {
         try {
-            return wait.until(ExpectedConditions.visibilityOfElementLocated(by)).isEnabled();
+            WebElement element = awaitVisible("isEnabled", by);
+            return command("isEnabled", by, element::isEnabled);
         } catch (TimeoutException | NoSuchElementException e) {
             return false;
         }
@@ -109,42 +447,185 @@ public class BasePage {
 
     // Scroll Methods
     protected void scrollToElement(By by) {
-        WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(by));
-        ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", element);
+        withElement("scrollToElement", by, Lookup.PRESENT,
+            element -> ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", element));
     }
 
     protected void scrollToTop() {
-        ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, 0)");
+        command("scrollToTop", null, () -> ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, 0)"));
     }
 
     protected void scrollToBottom() {
-        ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, document.body.scrollHeight)");
+        command("scrollToBottom", null,
+            () -> ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, document.body.scrollHeight)"));
     }
 
     // Frame Methods
     protected void switchToFrame(By by) {
-        wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(by));
+        elements.clear();
+        ActionMetrics.time(getClass().getSimpleName(), "switchToFrame", by, ActionMetrics.PHASE_WAIT,
+            () -> wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(by)));
     }
 
     protected void switchToDefaultContent() {
-        driver.switchTo().defaultContent();
+        elements.clear();
+        command("switchToDefaultContent", null, () -> driver.switchTo().defaultContent());
     }
 
     // Alert Methods
     protected void acceptAlert() {
-        wait.until(ExpectedConditions.alertIsPresent()).accept();
+        Alert alert = ActionMetrics.time(getClass().getSimpleName(), "acceptAlert", null, ActionMetrics.PHASE_WAIT,
+            () -> wait.until(ExpectedConditions.alertIsPresent()));
+        command("acceptAlert", null, alert::accept);
     }
 
     protected void dismissAlert() {
-        wait.until(ExpectedConditions.alertIsPresent()).dismiss();
+        Alert alert = ActionMetrics.time(getClass().getSimpleName(), "dismissAlert", null, ActionMetrics.PHASE_WAIT,
+            () -> wait.until(ExpectedConditions.alertIsPresent()));
+        command("dismissAlert", null, alert::dismiss);
     }
 
     // Window Methods
     protected void switchToWindow(String windowHandle) {
-        driver.switchTo().window(windowHandle);
+        elements.clear();
+        command("switchToWindow", windowHandle, () -> driver.switchTo().window(windowHandle));
     }
 
     protected String getCurrentWindowHandle() {
         return driver.getWindowHandle();
     }
-} 
\ No newline at end of file
+
+    // Element Cache
+    private <T> T withElement(String action, By by, Lookup state, Function<WebElement, T> step) {
+        return withElement(action, by, state, step, result -> true);
+    }
+
+    /**
+     * Runs a step on the element of a locator, using the cached element when there is one.
+     * A cached element is used only while it is still in the state the lookup would wait for,
+     * checked in one round trip; otherwise, when it is stale or no longer interactable, it is
+     * evicted and the step is repeated on a fresh lookup; so is a cached result that fails the
+     * acceptance check. A fresh element that goes stale before the step runs is looked up once more.
+     * @param action Step name for metrics
+     * @param by Element locator
+     * @param state State the lookup waits for
+     * @param step Step to run on the element
+     * @param acceptCached Whether the result of the cached element can be trusted without waiting
+     * @return Result of the step
+     */
+    private <T> T withElement(String action, By by, Lookup state,
+                              Function<WebElement, T> step, Predicate<T> acceptCached) {
+        WebElement cached = elements.get(by);
+        if (cached != null) {
+            // Presence needs no check, so only then is the wait's round trip actually skipped
+            int checks = state == Lookup.PRESENT ? 0 : 1;
+            int calls = 0;
+            try {
+                calls += checks;
+                if (isInState(cached, state)) {
+                    calls++;
+                    T result = command(action, by, () -> step.apply(cached));
+                    if (acceptCached.test(result)) {
+                        elements.hit(1 - checks);
+                        return result;
+                    }
+                }
+            } catch (StaleElementReferenceException | InvalidElementStateException e) {
+                // Falls through to a fresh lookup
+            }
+            elements.evict(by, calls);
+        } else {
+            elements.miss();
+        }
+        for (int attempt = 0; ; attempt++) {
+            WebElement element = lookup(action, by, state);
+            try {
+                T result = command(action, by, () -> step.apply(element));
+                elements.put(by, element);
+                return result;
+            } catch (StaleElementReferenceException e) {
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /** What a lookup waits for before a step runs on the element. */
+    private enum Lookup {
+        PRESENT, VISIBLE, CLICKABLE
+    }
+
+    private WebElement lookup(String action, By by, Lookup state) {
+        switch (state) {
+            case VISIBLE:
+                return awaitVisible(action, by);
+            case CLICKABLE:
+                return awaitClickable(action, by);
+            default:
+                return awaitPresent(action, by);
+        }
+    }
+
+    private boolean isInState(WebElement element, Lookup state) {
+        // Presence needs no check: a detached element fails the step as stale
+        return state == Lookup.PRESENT || Boolean.TRUE.equals(((JavascriptExecutor) driver)
+            .executeScript(CACHED_STATE_SCRIPT, element, state == Lookup.CLICKABLE));
+    }
+
+    // Instrumentation
+    private WebElement awaitVisible(String action, By by) {
+        return await(action, by, timeout -> waits.untilVisible(by, timeout));
+    }
+
+    private WebElement awaitClickable(String action, By by) {
+        return await(action, by, timeout -> waits.untilClickable(by, timeout));
+    }
+
+    private WebElement awaitPresent(String action, By by) {
+        return await(action, by, timeout -> waits.untilPresent(by, timeout));
+    }
+
+    /**
+     * Runs a wait with the adaptive timeout of this step and records how long it took.
+     * When the adaptive timeout expires while the page is still changing, the wait
+     * continues up to the ceiling instead of failing; on a quiet page it fails fast.
+     */
+    private <T> T await(String action, By by, Function<Duration, T> condition) {
+        String page = getClass().getSimpleName();
+        Duration budget = timeouts.timeoutFor(page, action, by);
+        long start = System.nanoTime();
+        try {
+            T result;
+            try {
+                result = condition.apply(budget);
+            } catch (TimeoutException e) {
+                Duration remaining = timeouts.getCeiling().minus(budget);
+                if (remaining.isNegative() || remaining.isZero() || !waits.isPageBusy(BUSY_SAMPLE)) {
+                    throw e;
+                }
+                result = condition.apply(remaining);
+            }
+            timeouts.record(page, action, by, Duration.ofNanos(System.nanoTime() - start));
+            return result;
+        } finally {
+            ActionMetrics.record(page, action, by, ActionMetrics.PHASE_WAIT, System.nanoTime() - start);
+        }
+    }
+
+    private <T> T command(String action, Object target, Supplier<T> step) {
+        try {
+            return ActionMetrics.time(getClass().getSimpleName(), action, target, ActionMetrics.PHASE_COMMAND, step);
+        } finally {
+            FrameRecorder.afterStep(driver);
+        }
+    }
+
+    private void command(String action, Object target, Runnable step) {
+        try {
+            ActionMetrics.time(getClass().getSimpleName(), action, target, ActionMetrics.PHASE_COMMAND, step);
+        } finally {
+            FrameRecorder.afterStep(driver);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks page-object behaviour against {@link FakeWebDriverServer}.
+ */
+public class BasePageTest {
+    private static final By SEARCH_BOX = By.name("q");
+    private static final long SLOW_STEP_MILLIS = 600;
+
+    private FakeWebDriverServer server;
+    private WebDriver driver;
+
+    @BeforeEach
+    void startServer() {
+        server = new FakeWebDriverServer().withElement(SEARCH_BOX, "textarea", "", true).start();
+        driver = new RemoteWebDriver(server.getUrl(), new ChromeOptions());
+    }
+
+    @AfterEach
+    void stopServer() {
+        driver.quit();
+        server.stop();
+    }
+
+    @Test
+    void readyBudgetExcludesStepsAfterNavigation() throws InterruptedException {
+        SearchPage page = new SearchPage(driver);
+        page.open();
+        page.type("selenium");
+        TimeUnit.MILLISECONDS.sleep(SLOW_STEP_MILLIS);
+
+        // READY is when the page became ready, not when the budget is checked
+        page.verifyReadyUnder(SLOW_STEP_MILLIS / 2);
+    }
+
+    @Test
+    void readyBudgetFailsWhenTheNavigationWasSlow() {
+        SearchPage page = new SearchPage(driver);
+        page.open();
+
+        assertThrows(AssertionError.class, () -> page.verifyReadyUnder(-1));
+    }
+
+    @Test
+    void cachedElementSavesOnlySkippedRoundTrips() {
+        SearchPage page = new SearchPage(driver);
+        page.open();
+        page.type("a");
+        page.scrollToSearchBox();
+        long hits = count(ElementCache.HITS);
+        long saved = count(ElementCache.SAVED_ROUND_TRIPS);
+
+        // A visible lookup still checks the cached element, in place of the wait
+        page.type("b");
+        assertEquals(hits + 1, count(ElementCache.HITS));
+        assertEquals(saved, count(ElementCache.SAVED_ROUND_TRIPS));
+
+        // A presence lookup skips the wait altogether
+        page.scrollToSearchBox();
+        assertEquals(hits + 2, count(ElementCache.HITS));
+        assertEquals(saved + 1, count(ElementCache.SAVED_ROUND_TRIPS));
+    }
+
+    private static long count(String name) {
+        return ActionMetrics.getCount(ElementCache.COMPONENT, name);
+    }
+
+    private static final class SearchPage extends BasePage {
+        private SearchPage(WebDriver driver) {
+            super(driver);
+        }
+
+        void open() {
+            navigateTo("https://example.test/");
+        }
+
+        void type(String text) {
+            sendKeys(SEARCH_BOX, text);
+        }
+
+        void scrollToSearchBox() {
+            scrollToElement(SEARCH_BOX);
+        }
+
+        void verifyReadyUnder(long millis) {
+            verifyBudget(PerformanceSample.READY, millis);
+        }
+    }
+}
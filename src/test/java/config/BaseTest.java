@@ -4,47 +4,48 @@ import org.openqa.selenium.WebDriver;
 import org.junit.jupiter.api.TestInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
-import java.io.File;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.BeforeEach;
-import org.apache.commons.io.FileUtils;
-import java.nio.file.*;
-import java.time.*;
-import java.time.temporal.ChronoUnit;
-import java.io.IOException;
-import org.junit.jupiter.api.BeforeAll;
-import java.nio.file.attribute.FileTime;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Base test class providing common test functionality.
  * Handles WebDriver lifecycle, screenshots, and test utilities.
  */
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
-@ExtendWith(TestResultLogger.class)
+@ExtendWith({TestResultCache.class, TestResultLogger.class})
 public abstract class BaseTest {
+    /**
+     * Session of the thread running this instance; the driver itself lives in {@link WebDriverConfig}.
+     * Set by {@link #initDriver(Browser)} and {@link #getDriver()}, which borrow a session on first use;
+     * null in a test that has not asked for one yet.
+     */
     protected WebDriver driver;
     protected Browser browser;
-    private static final String SCREENSHOT_DIR = "test-output/screenshots";
     private static final Logger logger = LoggerFactory.getLogger(BaseTest.class);
 
     /**
-     * Gets the current WebDriver instance.
+     * Gets the WebDriver instance of the thread running the current test,
+     * borrowing a session of the default browser when the thread has none.
      * @return WebDriver instance
      */
     protected WebDriver getDriver() {
-        return driver;
+        if (WebDriverConfig.getCurrentDriver() == null) {
+            initDriver(browser != null ? browser : WebDriverConfig.getDefaultBrowser());
+        }
+        return WebDriverConfig.getCurrentDriver();
     }
 
     /**
-     * Gets the current browser being used.
+     * Gets the browser of the thread running the current test.
      * @return Browser enum value
      */
     protected Browser getBrowser() {
-        return browser;
+        Browser current = WebDriverConfig.getBrowser();
+        return current != null ? current : browser;
     }
 
     /**
@@ -53,90 +54,66 @@ public abstract class BaseTest {
      */
     protected void initDriver(Browser browser) {
         this.browser = browser;
-        System.setProperty("browser", browser.getValue());
-        driver = WebDriverConfig.getDriver();
+        driver = WebDriverConfig.getDriver(browser);
+        TestResultLogger.tagBrowser(browser);
+        FrameRecorder.start(driver);
+    }
+
+    /**
+     * Logs the current session in as a role, restoring a stored session state when one is valid.
+     * @param role User role the state is stored under
+     * @param startUrl Page to open once logged in
+     * @param login UI login flow, only run when no valid state is stored
+     * @param isLoggedIn Checks on the current page whether the user is logged in
+     * @see SessionStateStore#authenticate(WebDriver, String, String, Consumer, Predicate)
+     */
+    protected void authenticate(String role, String startUrl, Consumer<WebDriver> login,
+                                Predicate<WebDriver> isLoggedIn) {
+        SessionStateStore.authenticate(getDriver(), role, startUrl, login, isLoggedIn);
     }
 
     @BeforeEach
     void setUp() {
-        if (driver == null) {
-            driver = WebDriverConfig.getDriver();
-        }
+        // No session is borrowed here, a test running another browser would borrow and release one for nothing
+        driver = WebDriverConfig.getCurrentDriver();
+        browser = WebDriverConfig.getBrowser();
+    }
+
+    /**
+     * Resets the current session and hands it back to the driver pool.
+     */
+    protected void releaseDriver() {
+        WebDriverConfig.releaseDriver();
+        driver = null;
     }
 
     protected void quitDriver() {
-        if (driver != null) {
-            WebDriverConfig.quitDriver();
-            driver = null;
-        }
+        WebDriverConfig.quitDriver();
+        driver = null;
     }
 
+    /**
+     * Captures a screenshot of the current session; the file is written in the background.
+     * @param testName Test name, either a method name or a JUnit display name
+     */
     public void takeScreenshot(String testName) {
         logger.info("Taking screenshot for test: {}", testName);
         
+        WebDriver driver = WebDriverConfig.getCurrentDriver();
         if (driver == null || !(driver instanceof TakesScreenshot)) {
             logger.error("Driver is null or does not support screenshots");
             return;
         }
 
         try {
-            File screenshotDir = new File(SCREENSHOT_DIR);
-            if (!screenshotDir.exists() && !screenshotDir.mkdirs()) {
-                logger.error("Failed to create screenshot directory");
-                return;
-            }
-
             // Parse test name from JUnit display name
             String[] parts = testName.split("\\[|\\]");
             String methodName = parts[0].trim();  // Test method name
-            
-            String filename = String.format("%s_%s_%s.png", 
-                methodName,
-                browser.name().toLowerCase(),
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
 
-            File destFile = new File(screenshotDir, filename);
-            File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-            FileUtils.copyFile(screenshot, destFile);
-            
-            logger.info("Screenshot successfully saved to: {}", destFile.getAbsolutePath());
+            Path destination = ScreenshotService.capture(driver, methodName, getBrowser());
+            logger.info("Screenshot queued for: {}", destination.toAbsolutePath());
         } catch (Exception e) {
             logger.error("Failed to take screenshot: {} - {}", e.getClass().getSimpleName(), e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    @BeforeAll
-    void globalSetup() {
-        cleanupOldScreenshots();
-    }
-
-    /**
-     * Cleans up screenshots older than 24 hours.
-     * Should be called periodically, perhaps in @BeforeAll or setUp
-     */
-    protected void cleanupOldScreenshots() {
-        Path screenshotPath = Paths.get(SCREENSHOT_DIR);
-        if (!Files.exists(screenshotPath)) {
-            return;
-        }
-
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(screenshotPath, "*.png")) {
-            Instant dayAgo = Instant.now().minus(24, ChronoUnit.HOURS);
-            
-            for (Path file : stream) {
-                try {
-                    FileTime creationTime = Files.getLastModifiedTime(file);
-                    if (creationTime.toInstant().isBefore(dayAgo)) {
-                        Files.delete(file);
-                        logger.info("Deleted old screenshot: {}", file.getFileName());
-                    }
-                } catch (IOException e) {
-                    logger.error("Failed to process screenshot file: {}", file.getFileName(), e);
-                }
-            }
-        } catch (IOException e) {
-            logger.error("Failed to cleanup screenshots", e);
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -12,6 +12,7 @@ public class BrowserParameterResolver implements ParameterResolver {
 
     @Override
     public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
-        return Browser.valueOf(System.getProperty("browser", "CHROME").toUpperCase());
+        Browser current = WebDriverConfig.getBrowser();
+        return current != null ? current : WebDriverConfig.getDefaultBrowser();
     }
 } 
\ No newline at end of file
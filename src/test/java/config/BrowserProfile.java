@@ -0,0 +1,161 @@
+package config;
+
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Named browser launch profile read from the environment properties.
+ * The active profile is chosen with "browser.profile"; its settings are the
+ * "profile.&lt;name&gt;.*" keys, e.g. "profile.lean.headless=true".
+ * Each setting is translated into the matching options of every {@link Browser}.
+ */
+public class BrowserProfile {
+    private final String name;
+    private final boolean headless;
+    private final int[] windowSize;
+    private final boolean images;
+    private final boolean extensions;
+    private final boolean backgroundThrottling;
+    private final boolean gpu;
+    private final List<String> extraArgs;
+
+    private BrowserProfile(String name) {
+        this.name = name;
+        String prefix = "profile." + name + ".";
+        this.headless = TestConfig.getBooleanProperty(prefix + "headless", false);
+        this.windowSize = parseWindowSize(TestConfig.getProperty(prefix + "window.size", "maximized"));
+        this.images = TestConfig.getBooleanProperty(prefix + "images", true);
+        this.extensions = TestConfig.getBooleanProperty(prefix + "extensions", true);
+        this.backgroundThrottling = TestConfig.getBooleanProperty(prefix + "background.throttling", true);
+        this.gpu = TestConfig.getBooleanProperty(prefix + "gpu", true);
+        String args = TestConfig.getProperty(prefix + "args", "");
+        this.extraArgs = args.isBlank() ? List.of() : Arrays.asList(args.trim().split("\\s+"));
+    }
+
+    /**
+     * Gets the profile selected by "browser.profile", defaulting to "default".
+     * Undefined settings keep the browser defaults, so "default" launches a plain maximized window.
+     * @return Active profile
+     */
+    public static BrowserProfile active() {
+        return named(TestConfig.getProperty("browser.profile", "default"));
+    }
+
+    /**
+     * Reads a profile by name.
+     * @param name Profile name
+     * @return Profile
+     */
+    public static BrowserProfile named(String name) {
+        return new BrowserProfile(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Whether the window should be maximized after launch.
+     * False when the profile sets a fixed viewport.
+     * @return true for a maximized window
+     */
+    public boolean isMaximized() {
+        return windowSize == null;
+    }
+
+    /**
+     * Applies the profile to the options of the given browser.
+     * @param browser Browser the options belong to
+     * @param options ChromeOptions, EdgeOptions or FirefoxOptions
+     * @return The same options
+     */
+    public MutableCapabilities apply(Browser browser, MutableCapabilities options) {
+        switch (browser) {
+            case CHROME:
+            case EDGE:
+                applyChromium((ChromiumOptions<?>) options);
+                break;
+            case FIREFOX:
+                applyFirefox((FirefoxOptions) options);
+                break;
+            default:
+                throw new RuntimeException("Unsupported browser: " + browser);
+        }
+        return options;
+    }
+
+    private void applyChromium(ChromiumOptions<?> options) {
+        List<String> args = new ArrayList<>();
+        if (headless) {
+            args.add("--headless=new");
+        }
+        if (windowSize != null) {
+            args.add("--window-size=" + windowSize[0] + "," + windowSize[1]);
+        }
+        if (!images) {
+            args.add("--blink-settings=imagesEnabled=false");
+        }
+        if (!extensions) {
+            args.add("--disable-extensions");
+            args.add("--disable-component-extensions-with-background-pages");
+        }
+        if (!backgroundThrottling) {
+            args.add("--disable-background-timer-throttling");
+            args.add("--disable-backgrounding-occluded-windows");
+            args.add("--disable-renderer-backgrounding");
+        }
+        if (!gpu) {
+            args.add("--disable-gpu");
+            args.add("--disable-dev-shm-usage");
+        }
+        args.addAll(extraArgs);
+        options.addArguments(args);
+    }
+
+    private void applyFirefox(FirefoxOptions options) {
+        List<String> args = new ArrayList<>();
+        if (headless) {
+            args.add("-headless");
+        }
+        if (windowSize != null) {
+            args.add("--width=" + windowSize[0]);
+            args.add("--height=" + windowSize[1]);
+        }
+        if (!images) {
+            options.addPreference("permissions.default.image", 2);
+        }
+        if (!extensions) {
+            options.addPreference("extensions.enabledScopes", 0);
+            options.addPreference("xpinstall.enabled", false);
+        }
+        if (!backgroundThrottling) {
+            options.addPreference("dom.timeout.enable_budget_timer_throttling", false);
+            options.addPreference("dom.min_background_timeout_value", 4);
+        }
+        if (!gpu) {
+            options.addPreference("layers.acceleration.disabled", true);
+        }
+        args.addAll(extraArgs);
+        options.addArguments(args);
+    }
+
+    private static int[] parseWindowSize(String value) {
+        if (value.isBlank() || "maximized".equalsIgnoreCase(value.trim())) {
+            return null;
+        }
+        String[] parts = value.trim().toLowerCase().split("x");
+        if (parts.length != 2) {
+            throw new RuntimeException("Invalid window size '" + value + "', expected e.g. 1366x768");
+        }
+        return new int[] {Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
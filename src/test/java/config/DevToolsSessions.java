@@ -0,0 +1,76 @@
+package config;
+
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.remote.Augmenter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One DevTools connection per Chromium session (Chrome, Edge), shared by the framework components that use CDP.
+ * Remote sessions are augmented once; sessions without a DevTools endpoint are remembered as unsupported.
+ */
+class DevToolsSessions {
+    private static final Logger logger = LoggerFactory.getLogger(DevToolsSessions.class);
+    private static final Map<WebDriver, Optional<DevTools>> connections = new ConcurrentHashMap<>();
+
+    private DevToolsSessions() {
+    }
+
+    /**
+     * Gets the DevTools connection of a session, opening it on first use.
+     * @param driver Session
+     * @return Connection, or empty for non-Chromium browsers and sessions without DevTools access
+     */
+    static Optional<DevTools> get(WebDriver driver) {
+        return connections.computeIfAbsent(driver, DevToolsSessions::connect);
+    }
+
+    /**
+     * Closes the connection of a session that is being quit.
+     * @param driver Session
+     */
+    static void close(WebDriver driver) {
+        Optional<DevTools> devTools = connections.remove(driver);
+        if (devTools != null && devTools.isPresent()) {
+            try {
+                devTools.get().close();
+            } catch (RuntimeException e) {
+                logger.debug("Failed to close DevTools connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static Optional<DevTools> connect(WebDriver driver) {
+        String browserName = driver instanceof HasCapabilities
+            ? ((HasCapabilities) driver).getCapabilities().getBrowserName()
+            : "";
+        if (!org.openqa.selenium.remote.Browser.CHROME.is(browserName)
+            && !org.openqa.selenium.remote.Browser.EDGE.is(browserName)) {
+            logger.debug("DevTools is not available for {}", browserName);
+            return Optional.empty();
+        }
+        try {
+            WebDriver devToolsDriver = driver instanceof HasDevTools ? driver : new Augmenter().augment(driver);
+            if (!(devToolsDriver instanceof HasDevTools)) {
+                logger.info("Session of {} exposes no DevTools endpoint", browserName);
+                return Optional.empty();
+            }
+            Optional<DevTools> devTools = ((HasDevTools) devToolsDriver).maybeGetDevTools();
+            if (devTools.isEmpty()) {
+                logger.info("No DevTools support for this {} version", browserName);
+                return Optional.empty();
+            }
+            devTools.get().createSessionIfThereIsNotOne();
+            return devTools;
+        } catch (RuntimeException e) {
+            logger.warn("DevTools unavailable for {}: {}", browserName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package config;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves driver binaries once per JVM and keeps the result in an on-disk cache.
+ * Later driver creations reuse the cached binary without any network round trip;
+ * in offline mode only the cache is consulted. An entry is resolved again when it is older than
+ * "driver.cache.ttl.hours" or when the installed browser reports another version than it was resolved for.
+ */
+public class DriverBinaryCache {
+    private static final Logger logger = LoggerFactory.getLogger(DriverBinaryCache.class);
+    private static final String CACHE_FILE = "driver-binaries.properties";
+    private static final Pattern VERSION = Pattern.compile("\\d+(\\.\\d+)+");
+    private static final Map<Browser, String> resolvedPaths = new ConcurrentHashMap<>();
+
+    private DriverBinaryCache() {
+    }
+
+    /**
+     * Makes the driver binary for the given browser available to Selenium.
+     * Resolves it at most once per JVM; the path is exported through the
+     * browser's driver system property, e.g. "webdriver.chrome.driver".
+     * @param browser Browser whose driver is needed
+     * @return Absolute path of the driver binary
+     */
+    public static String setup(Browser browser) {
+        return resolvedPaths.computeIfAbsent(browser, b -> {
+            String path = resolve(b);
+            System.setProperty(driverProperty(b), path);
+            return path;
+        });
+    }
+
+    private static String resolve(Browser browser) {
+        boolean offline = TestConfig.getBooleanProperty("driver.offline", false);
+        Duration ttl = Duration.ofHours(TestConfig.getLongProperty("driver.cache.ttl.hours", 24));
+        Path cacheFile = getCacheDir().resolve(CACHE_FILE);
+
+        Properties cache = load(cacheFile);
+        String path = cache.getProperty(browser.getValue() + ".path");
+        String resolvedAt = cache.getProperty(browser.getValue() + ".resolvedAt");
+        String cachedBrowserVersion = cache.getProperty(browser.getValue() + ".browserVersion", "");
+        String browserVersion = detectBrowserVersion(browser);
+        if (path != null && resolvedAt != null && Files.isExecutable(Paths.get(path))) {
+            boolean sameBrowser = browserVersion.isEmpty() || browserVersion.equals(cachedBrowserVersion);
+            boolean fresh = sameBrowser && isFresh(resolvedAt, ttl);
+            if (!sameBrowser && offline) {
+                logger.warn("{} is now version {} but the cached driver was resolved for {}; using it offline",
+                    browser, browserVersion, cachedBrowserVersion);
+            }
+            if (fresh || offline) {
+                logger.info("Using cached {} driver {} ({})", browser, path,
+                    cache.getProperty(browser.getValue() + ".driverVersion"));
+                return path;
+            }
+        }
+        if (offline) {
+            throw new RuntimeException("No cached " + browser + " driver in " + cacheFile
+                + "; run once with driver.offline=false to populate it");
+        }
+
+        logger.info("Resolving {} driver binary", browser);
+        WebDriverManager manager = managerFor(browser);
+        manager.setup();
+        path = manager.getDownloadedDriverPath();
+        store(cacheFile, browser, path, manager.getDownloadedDriverVersion(),
+            manager.getBrowserPath().map(Path::toString).orElse(""), browserVersion);
+        return path;
+    }
+
+    private static boolean isFresh(String resolvedAt, Duration ttl) {
+        try {
+            return Instant.parse(resolvedAt).plus(ttl).isAfter(Instant.now());
+        } catch (DateTimeParseException e) {
+            // A hand-edited or truncated entry counts as a cache miss
+            return false;
+        }
+    }
+
+    /**
+     * Asks the installed browser for its version with "--version", without any network access.
+     * Not on Windows, where Chromium browsers ignore the flag and open a window.
+     * @return Version, e.g. "120.0.6099.109", or empty when the browser is not found or does not say
+     */
+    private static String detectBrowserVersion(Browser browser) {
+        if (System.getProperty("os.name", "").toLowerCase().startsWith("windows")) {
+            return "";
+        }
+        Path binary = managerFor(browser).getBrowserPath().orElse(null);
+        if (binary == null) {
+            return "";
+        }
+        try {
+            Process process = new ProcessBuilder(binary.toString(), "--version").redirectErrorStream(true).start();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return "";
+            }
+            Matcher version = VERSION.matcher(new String(process.getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8));
+            return version.find() ? version.group() : "";
+        } catch (IOException e) {
+            logger.debug("Could not read the {} version from {}: {}", browser, binary, e.getMessage());
+            return "";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+
+    /**
+     * Gets the cache directory from "driver.cache.dir", defaulting to a folder in the user home
+     * so the cache survives "mvn clean".
+     * @return Cache directory path
+     */
+    static Path getCacheDir() {
+        String dir = TestConfig.getProperty("driver.cache.dir");
+        return dir != null && !dir.isBlank()
+            ? Paths.get(dir)
+            : Paths.get(System.getProperty("user.home"), ".cache", "selenium-template");
+    }
+
+    private static WebDriverManager managerFor(Browser browser) {
+        switch (browser) {
+            case CHROME:
+                return WebDriverManager.chromedriver();
+            case FIREFOX:
+                return WebDriverManager.firefoxdriver();
+            case EDGE:
+                return WebDriverManager.edgedriver();
+            default:
+                throw new RuntimeException("Unsupported browser: " + browser);
+        }
+    }
+
+    private static String driverProperty(Browser browser) {
+        switch (browser) {
+            case CHROME:
+                return "webdriver.chrome.driver";
+            case FIREFOX:
+                return "webdriver.gecko.driver";
+            case EDGE:
+                return "webdriver.edge.driver";
+            default:
+                throw new RuntimeException("Unsupported browser: " + browser);
+        }
+    }
+
+    private static Properties load(Path cacheFile) {
+        Properties cache = new Properties();
+        if (Files.exists(cacheFile)) {
+            try (InputStream input = Files.newInputStream(cacheFile)) {
+                cache.load(input);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Ignoring unreadable driver cache {}: {}", cacheFile, e.getMessage());
+            }
+        }
+        return cache;
+    }
+
+    private static synchronized void store(Path cacheFile, Browser browser, String path,
+                                           String driverVersion, String browserPath, String browserVersion) {
+        // Re-read so entries written by other browsers or other JVMs are kept
+        Properties cache = load(cacheFile);
+        cache.setProperty(browser.getValue() + ".path", path);
+        cache.setProperty(browser.getValue() + ".driverVersion", String.valueOf(driverVersion));
+        cache.setProperty(browser.getValue() + ".browserPath", browserPath);
+        cache.setProperty(browser.getValue() + ".browserVersion", browserVersion);
+        cache.setProperty(browser.getValue() + ".resolvedAt", Instant.now().toString());
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path tmp = Files.createTempFile(cacheFile.getParent(), CACHE_FILE, ".tmp");
+            try (OutputStream output = Files.newOutputStream(tmp)) {
+                cache.store(output, "Resolved WebDriver binaries");
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write driver cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+}
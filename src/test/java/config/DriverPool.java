@@ -0,0 +1,311 @@
+package config;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool of pre-launched WebDriver sessions for one browser.
+ * Sessions are reset and handed back between tests instead of being quit;
+ * a session is replaced when its reset or health check fails, or when {@link SessionHealthMonitor}
+ * finds it worn out. On Chromium browsers the reset clears cookies and all storage of every origin
+ * the session's windows navigated to. WebDriver alone can only reach the current page, so on other
+ * browsers localStorage, sessionStorage and cookies of other origins survive the reset.
+ */
+public class DriverPool {
+    private static final Logger logger = LoggerFactory.getLogger(DriverPool.class);
+    private static final String CLEAR_STORAGE_SCRIPT =
+        "try { window.localStorage.clear(); } catch (e) {}"
+        + "try { window.sessionStorage.clear(); } catch (e) {}";
+    private static final Set<String> WEB_SCHEMES = Set.of("http", "https");
+    // Across all pools of the JVM, reported by SessionAffinityOrderer
+    private static final AtomicInteger totalCreated = new AtomicInteger();
+    private static final AtomicInteger totalBorrowed = new AtomicInteger();
+
+    private final Browser browser;
+    private final Supplier<WebDriver> factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final Semaphore capacity;
+    private final BlockingDeque<WebDriver> idle = new LinkedBlockingDeque<>();
+    private final Set<WebDriver> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingLaunches = new AtomicInteger();
+    private final ExecutorService launcher;
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool and starts launching its minimum number of sessions in the background.
+     * @param browser Browser the sessions run
+     * @param factory Creates a new session
+     * @param minSize Sessions kept launched at all times
+     * @param maxSize Upper bound of live sessions
+     * @param borrowTimeoutSeconds How long a borrower waits for a free session
+     */
+    public DriverPool(Browser browser, Supplier<WebDriver> factory, int minSize, int maxSize,
+                      long borrowTimeoutSeconds) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException(
+                "Invalid pool size for " + browser + ": min=" + minSize + ", max=" + maxSize);
+        }
+        this.browser = browser;
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = TimeUnit.SECONDS.toMillis(borrowTimeoutSeconds);
+        this.capacity = new Semaphore(maxSize, true);
+        this.launcher = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "driver-pool-" + browser.getValue());
+            thread.setDaemon(true);
+            return thread;
+        });
+        replenish();
+    }
+
+    /**
+     * Takes a healthy session from the pool, launching one if below the maximum size.
+     * Blocks while all sessions are in use.
+     * @return WebDriver session owned by the caller until released
+     */
+    public WebDriver borrow() {
+        long deadline = System.currentTimeMillis() + borrowTimeoutMillis;
+        try {
+            while (!closed) {
+                WebDriver pooled = idle.pollFirst();
+                if (pooled != null) {
+                    if (isHealthy(pooled)) {
+                        totalBorrowed.incrementAndGet();
+                        return pooled;
+                    }
+                    logger.warn("Discarding unhealthy {} session", browser);
+                    destroy(pooled);
+                    continue;
+                }
+                // Prefer a session that is already being pre-launched over starting another one
+                if (pendingLaunches.get() == 0 && capacity.tryAcquire()) {
+                    WebDriver launched = launch();
+                    totalBorrowed.incrementAndGet();
+                    return launched;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new RuntimeException("Timed out waiting for a free " + browser + " session");
+                }
+                pooled = idle.pollFirst(Math.min(remaining, 500), TimeUnit.MILLISECONDS);
+                if (pooled != null) {
+                    idle.offerFirst(pooled);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a " + browser + " session", e);
+        }
+        throw new RuntimeException("Driver pool for " + browser + " is closed");
+    }
+
+    /**
+     * Resets a borrowed session and returns it to the pool.
+     * The session is quit and replaced if it cannot be reset.
+     * @param driver Session previously returned by {@link #borrow()}
+     */
+    public void release(WebDriver driver) {
+        if (!sessions.contains(driver)) {
+            return;
+        }
+        FrameRecorder.discard(driver);
+        // Checked before the reset, a worn out session is not worth resetting
+        if (!closed && SessionHealthMonitor.shouldRecycle(driver) == null && reset(driver) && isHealthy(driver)) {
+            idle.offerFirst(driver);
+        } else {
+            destroy(driver);
+        }
+    }
+
+    /**
+     * Quits a borrowed session instead of returning it to the pool.
+     * @param driver Session previously returned by {@link #borrow()}
+     */
+    public void invalidate(WebDriver driver) {
+        if (sessions.contains(driver)) {
+            destroy(driver);
+        }
+    }
+
+    /**
+     * Quits every session, including the ones still borrowed.
+     */
+    public void shutdown() {
+        closed = true;
+        launcher.shutdownNow();
+        List<WebDriver> remaining = new ArrayList<>(sessions);
+        remaining.forEach(this::destroy);
+    }
+
+    /**
+     * Gets the sessions currently alive, borrowed or idle.
+     * @return unmodifiable view of the sessions
+     */
+    public Set<WebDriver> getSessions() {
+        return Collections.unmodifiableSet(sessions);
+    }
+
+    /**
+     * Counts the sessions all pools of this JVM created, including pre-launched ones.
+     * @return Sessions created so far
+     */
+    static int getSessionsCreated() {
+        return totalCreated.get();
+    }
+
+    /**
+     * Counts the sessions all pools of this JVM handed out, about one per test that used a browser.
+     * @return Borrows so far
+     */
+    static int getBorrows() {
+        return totalBorrowed.get();
+    }
+
+    private WebDriver launch() {
+        try {
+            WebDriver driver = factory.get();
+            totalCreated.incrementAndGet();
+            sessions.add(driver);
+            SessionHealthMonitor.register(driver, browser);
+            return driver;
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    private void replenish() {
+        // Sessions being launched hold a permit but are not in the session set yet
+        int missing = minSize - (maxSize - capacity.availablePermits());
+        for (int i = 0; i < missing && !closed; i++) {
+            if (!capacity.tryAcquire()) {
+                return;
+            }
+            pendingLaunches.incrementAndGet();
+            launcher.execute(() -> {
+                try {
+                    WebDriver driver = launch();
+                    if (closed) {
+                        destroy(driver);
+                    } else {
+                        idle.offerLast(driver);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Failed to pre-launch {} session: {}", browser, e.getMessage());
+                } finally {
+                    pendingLaunches.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private boolean reset(WebDriver driver) {
+        try {
+            ChromiumDriver chromium = driver instanceof ChromiumDriver ? (ChromiumDriver) driver : null;
+            Set<String> origins = new LinkedHashSet<>();
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            for (int i = handles.size() - 1; i >= 0; i--) {
+                driver.switchTo().window(handles.get(i));
+                if (chromium != null) {
+                    origins.addAll(visitedOrigins(chromium));
+                }
+                if (i > 0) {
+                    driver.close();
+                }
+            }
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+            // The HTTP cache is kept on purpose, later tests load the same static resources
+            NetworkControl.reset(driver);
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            if (chromium != null) {
+                chromium.executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+                for (String origin : origins) {
+                    // "all" covers local and session storage, IndexedDB, service workers and Cache Storage
+                    chromium.executeCdpCommand("Storage.clearDataForOrigin",
+                        Map.of("origin", origin, "storageTypes", "all"));
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to reset {} session: {}", browser, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads the web origins in the navigation history of the current window.
+     */
+    private static Set<String> visitedOrigins(ChromiumDriver driver) {
+        Set<String> origins = new LinkedHashSet<>();
+        Object entries = driver.executeCdpCommand("Page.getNavigationHistory", Collections.emptyMap()).get("entries");
+        if (entries instanceof List) {
+            for (Object entry : (List<?>) entries) {
+                try {
+                    URI url = URI.create(String.valueOf(((Map<?, ?>) entry).get("url")));
+                    if (url.getScheme() != null && WEB_SCHEMES.contains(url.getScheme()) && url.getHost() != null) {
+                        origins.add(url.getScheme() + "://" + url.getHost()
+                            + (url.getPort() < 0 ? "" : ":" + url.getPort()));
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Not a URL an origin can be taken from
+                }
+            }
+        }
+        return origins;
+    }
+
+    private boolean isHealthy(WebDriver driver) {
+        try {
+            long start = System.nanoTime();
+            boolean healthy = Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript("return true;"));
+            SessionHealthMonitor.recordLatency(driver, System.nanoTime() - start);
+            return healthy;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void destroy(WebDriver driver) {
+        idle.remove(driver);
+        if (!sessions.remove(driver)) {
+            return;
+        }
+        capacity.release();
+        FrameRecorder.discard(driver);
+        NetworkControl.forget(driver);
+        DevToolsSessions.close(driver);
+        SessionHealthMonitor.unregister(driver);
+        logger.info("Quitting {} browser", browser);
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to quit {} browser: {}", browser, e.getMessage());
+        }
+        if (!closed) {
+            replenish();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package config;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Elements a page object has already found, keyed by locator.
+ * {@link BasePage} tries the cached element first and only runs the wait and find round trip
+ * on a miss, or when the cached element turns out to be stale or no longer usable.
+ * Hits, misses and stale entries are counted in {@link ActionMetrics} under "ElementCache", with the
+ * round trips the cache saved net of those it cost: a hit that still checks the element's state spends
+ * the call the wait would have made, and a cached element that turns out unusable wasted its calls.
+ */
+class ElementCache {
+    static final String COMPONENT = "ElementCache";
+    static final String HITS = "hits";
+    static final String MISSES = "misses";
+    static final String STALE = "stale";
+    static final String SAVED_ROUND_TRIPS = "savedRoundTrips";
+
+    private final Map<By, WebElement> elements = new HashMap<>();
+    private final boolean enabled = TestConfig.getBooleanProperty("element.cache.enabled", true);
+
+    /**
+     * Gets the cached element of a locator.
+     * @param by Locator
+     * @return Element, or null when not cached
+     */
+    WebElement get(By by) {
+        return enabled ? elements.get(by) : null;
+    }
+
+    void put(By by, WebElement element) {
+        if (enabled) {
+            elements.put(by, element);
+        }
+    }
+
+    /**
+     * Counts a cached element that was used successfully.
+     * @param savedRoundTrips 1 when the wait round trip was skipped, 0 when a state check replaced it
+     */
+    void hit(int savedRoundTrips) {
+        ActionMetrics.count(COMPONENT, HITS, 1);
+        if (savedRoundTrips != 0) {
+            ActionMetrics.count(COMPONENT, SAVED_ROUND_TRIPS, savedRoundTrips);
+        }
+    }
+
+    void miss() {
+        if (enabled) {
+            ActionMetrics.count(COMPONENT, MISSES, 1);
+        }
+    }
+
+    /**
+     * Drops a cached element that could not be used.
+     * @param by Locator of the element
+     * @param wastedRoundTrips Calls made on the cached element before the fresh lookup: its state check
+     *                         and the step, if they ran
+     */
+    void evict(By by, int wastedRoundTrips) {
+        elements.remove(by);
+        ActionMetrics.count(COMPONENT, STALE, 1);
+        if (wastedRoundTrips != 0) {
+            ActionMetrics.count(COMPONENT, SAVED_ROUND_TRIPS, -wastedRoundTrips);
+        }
+    }
+
+    /**
+     * Drops every element, after navigation or a frame or window switch.
+     */
+    void clear() {
+        elements.clear();
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache over the whole run.
+     * @return Hit rate between 0 and 1
+     */
+    static double getHitRate() {
+        long hits = ActionMetrics.getCount(COMPONENT, HITS);
+        long total = hits + ActionMetrics.getCount(COMPONENT, MISSES);
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,56 @@
+package config;
+
+/**
+ * Snapshot of an element's text, value and visibility, as read by
+ * {@link BasePage#readElements(java.util.List)}.
+ */
+public class ElementState {
+    private static final ElementState ABSENT = new ElementState(false, null, null, false);
+
+    private final boolean present;
+    private final String text;
+    private final String value;
+    private final boolean displayed;
+
+    ElementState(boolean present, String text, String value, boolean displayed) {
+        this.present = present;
+        this.text = text;
+        this.value = value;
+        this.displayed = displayed;
+    }
+
+    static ElementState absent() {
+        return ABSENT;
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    /**
+     * Gets the rendered text of the element.
+     * @return Text, or null if the element is not present
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the value property (form fields) or value attribute of the element.
+     * @return Value, or null if the element is not present or has none
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isDisplayed() {
+        return displayed;
+    }
+
+    @Override
+    public String toString() {
+        return present
+            ? String.format("ElementState[text=%s, value=%s, displayed=%s]", text, value, displayed)
+            : "ElementState[absent]";
+    }
+}
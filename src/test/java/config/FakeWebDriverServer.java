@@ -0,0 +1,550 @@
+package config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.By;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for a W3C WebDriver endpoint (a driver binary or a Grid).
+ * Serves a fixed page of fake elements so the framework can be exercised with
+ * {@link org.openqa.selenium.remote.RemoteWebDriver} without a browser or network.
+ * Scripts are not executed; the framework's own scripts (batch reads, form fills,
+ * script waits, Selenium atoms) are recognised by their arguments and emulated.
+ * Small responses need "sun.net.httpserver.nodelay=true" (TCP_NODELAY), set for the test JVM in the
+ * surefire configuration; it is JVM-wide, so the server does not set it itself.
+ */
+public class FakeWebDriverServer {
+    private static final Logger logger = LoggerFactory.getLogger(FakeWebDriverServer.class);
+    private static final String ELEMENT_KEY = "element-6066-11e4-a52e-4f735466cecf";
+    private static final Pattern CSS_ID = Pattern.compile("^#([\\w-]+)$");
+    private static final Pattern CSS_NAME = Pattern.compile("^\\*\\[name=[\"']([^\"']*)[\"']\\]$");
+    private static final Pattern CSS_CLASS = Pattern.compile("^\\.([\\w-]+)$");
+
+    private final Json json = new Json();
+    private final Map<String, FakeElement> template = new LinkedHashMap<>();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionsCreated = new AtomicInteger();
+    private String title = "Fake Page";
+    private int maxSessions = Integer.MAX_VALUE;
+    private String screenshotBase64;
+    private HttpServer server;
+
+    /**
+     * Adds an element to the page every new session starts with.
+     * @param by Locator that finds the element
+     * @param tagName Tag name, e.g. "input"
+     * @param text Rendered text
+     * @param displayed Whether the element is visible
+     * @return this server
+     */
+    public FakeWebDriverServer withElement(By by, String tagName, String text, boolean displayed) {
+        By.Remotable.Parameters parameters = ((By.Remotable) by).getRemoteParameters();
+        template.put(key(parameters.using(), String.valueOf(parameters.value())),
+            new FakeElement(tagName, text, "", displayed));
+        return this;
+    }
+
+    public FakeWebDriverServer withTitle(String title) {
+        this.title = title;
+        return this;
+    }
+
+    /**
+     * Limits concurrent sessions, as a Grid node with a fixed number of slots would.
+     * @param maxSessions Session limit
+     * @return this server
+     */
+    public FakeWebDriverServer withMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+        return this;
+    }
+
+    /**
+     * Sets the size of the PNG returned for screenshots.
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @return this server
+     */
+    public FakeWebDriverServer withScreenshotSize(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 31 + y * 17) & 0xFFFFFF);
+            }
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode fake screenshot", e);
+        }
+        screenshotBase64 = Base64.getEncoder().encodeToString(png.toByteArray());
+        return this;
+    }
+
+    /**
+     * Starts the server on a free local port.
+     * @return this server
+     */
+    public FakeWebDriverServer start() {
+        if (screenshotBase64 == null) {
+            withScreenshotSize(64, 48);
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start fake WebDriver server", e);
+        }
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-webdriver");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        logger.info("Fake WebDriver server listening on {}", getUrl());
+        return this;
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    public URL getUrl() {
+        try {
+            return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/").toURL();
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    public int getSessionsCreated() {
+        return sessionsCreated.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            Map<String, Object> body = readBody(exchange);
+            respond(exchange, 200, route(method, path, body));
+        } catch (WebDriverError e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", e.error);
+            error.put("message", e.getMessage());
+            error.put("stacktrace", "");
+            respond(exchange, e.status, error);
+        } catch (RuntimeException e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", "unknown error");
+            error.put("message", String.valueOf(e));
+            error.put("stacktrace", "");
+            respond(exchange, 500, error);
+        }
+    }
+
+    private Object route(String method, String[] path, Map<String, Object> body) {
+        if (path[0].equals("status")) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("ready", sessions.size() < maxSessions);
+            status.put("message", "Fake WebDriver server");
+            status.put("maxSessions", maxSessions == Integer.MAX_VALUE ? -1 : maxSessions);
+            status.put("activeSessions", sessions.size());
+            return status;
+        }
+        if (!path[0].equals("session")) {
+            throw new WebDriverError(404, "unknown command", "Unknown command " + String.join("/", path));
+        }
+        if (path.length == 1) {
+            return newSession(body);
+        }
+        Session session = sessions.get(path[1]);
+        if (session == null) {
+            throw new WebDriverError(404, "invalid session id", "No session " + path[1]);
+        }
+        if (path.length == 2) {
+            sessions.remove(path[1]);
+            return null;
+        }
+        return session.handle(method, path, body);
+    }
+
+    private synchronized Object newSession(Map<String, Object> body) {
+        if (sessions.size() >= maxSessions) {
+            throw new WebDriverError(500, "session not created", "No free slot, max sessions " + maxSessions);
+        }
+        Session session = new Session();
+        sessions.put(session.id, session);
+        sessionsCreated.incrementAndGet();
+
+        Map<String, Object> capabilities = new LinkedHashMap<>();
+        Object requested = body.get("capabilities");
+        if (requested instanceof Map && ((Map<?, ?>) requested).get("alwaysMatch") instanceof Map) {
+            ((Map<?, ?>) ((Map<?, ?>) requested).get("alwaysMatch"))
+                .forEach((name, value) -> capabilities.put(String.valueOf(name), value));
+        }
+        capabilities.putIfAbsent("browserName", "chrome");
+        capabilities.put("browserVersion", "fake");
+        capabilities.put("platformName", "any");
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("sessionId", session.id);
+        value.put("capabilities", capabilities);
+        return value;
+    }
+
+    private Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream input = exchange.getRequestBody()) {
+            String text = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            return text.isBlank() ? Collections.emptyMap() : json.toType(text, Json.MAP_TYPE);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, Object value) throws IOException {
+        Map<String, Object> envelope = new HashMap<>();
+        envelope.put("value", value);
+        byte[] bytes = json.toJson(envelope).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static String key(String using, String value) {
+        Matcher matcher;
+        if ("css selector".equals(using)) {
+            if ((matcher = CSS_ID.matcher(value)).matches()) {
+                return "id:" + matcher.group(1);
+            }
+            if ((matcher = CSS_NAME.matcher(value)).matches()) {
+                return "name:" + matcher.group(1);
+            }
+            if ((matcher = CSS_CLASS.matcher(value)).matches()) {
+                return "class name:" + matcher.group(1);
+            }
+        }
+        return using + ":" + value;
+    }
+
+    private static Map<String, Object> reference(String elementId) {
+        return Collections.singletonMap(ELEMENT_KEY, elementId);
+    }
+
+    private static final class FakeElement {
+        private final String tagName;
+        private final String text;
+        private volatile String value;
+        private final boolean displayed;
+
+        private FakeElement(String tagName, String text, String value, boolean displayed) {
+            this.tagName = tagName;
+            this.text = text;
+            this.value = value;
+            this.displayed = displayed;
+        }
+    }
+
+    private final class Session {
+        private final String id = UUID.randomUUID().toString();
+        private final String windowHandle = UUID.randomUUID().toString();
+        private final Map<String, String> elementIdsByKey = new HashMap<>();
+        private final Map<String, FakeElement> elements = new HashMap<>();
+        private final Map<String, Map<String, Object>> cookies = new ConcurrentHashMap<>();
+        private volatile String url = "about:blank";
+        private volatile long navigatedAt = System.nanoTime();
+
+        private Session() {
+            template.forEach((key, element) -> {
+                String elementId = UUID.randomUUID().toString();
+                elementIdsByKey.put(key, elementId);
+                elements.put(elementId, new FakeElement(element.tagName, element.text, element.value,
+                    element.displayed));
+            });
+        }
+
+        private Object handle(String method, String[] path, Map<String, Object> body) {
+            String command = path[2];
+            switch (command) {
+                case "url":
+                    if ("POST".equals(method)) {
+                        url = String.valueOf(body.get("url"));
+                        navigatedAt = System.nanoTime();
+                        return null;
+                    }
+                    return url;
+                case "title":
+                    return title;
+                case "source":
+                    return "<html><head><title>" + title + "</title></head><body></body></html>";
+                case "element":
+                    if (path.length == 3) {
+                        return reference(find(body));
+                    }
+                    return elementCommand(method, path);
+                case "elements":
+                    String found = elementIdsByKey.get(key(String.valueOf(body.get("using")),
+                        String.valueOf(body.get("value"))));
+                    return found == null ? Collections.emptyList() : Collections.singletonList(reference(found));
+                case "execute":
+                    return execute(String.valueOf(body.get("script")), (List<?>) body.get("args"),
+                        path.length > 3 && "async".equals(path[3]));
+                case "screenshot":
+                    return screenshotBase64;
+                case "cookie":
+                    return cookies(method, path, body);
+                case "window":
+                    if (path.length > 3 && "handles".equals(path[3])) {
+                        return Collections.singletonList(windowHandle);
+                    }
+                    if (path.length > 3 && "rect".equals(path[3]) || path.length > 3 && "maximize".equals(path[3])) {
+                        Map<String, Object> rect = new LinkedHashMap<>();
+                        rect.put("x", 0);
+                        rect.put("y", 0);
+                        rect.put("width", 1280);
+                        rect.put("height", 720);
+                        return rect;
+                    }
+                    return "DELETE".equals(method) ? Collections.emptyList() : windowHandle;
+                case "timeouts":
+                    Map<String, Object> timeouts = new LinkedHashMap<>();
+                    timeouts.put("implicit", 0);
+                    timeouts.put("pageLoad", 300000);
+                    timeouts.put("script", 30000);
+                    return timeouts;
+                case "alert":
+                    throw new WebDriverError(404, "no such alert", "No alert is open");
+                default:
+                    // Navigation, frames, actions and the like only need to succeed
+                    return null;
+            }
+        }
+
+        private String find(Map<String, Object> body) {
+            String elementId = elementIdsByKey.get(key(String.valueOf(body.get("using")),
+                String.valueOf(body.get("value"))));
+            if (elementId == null) {
+                throw new WebDriverError(404, "no such element",
+                    "Unable to locate element: " + body.get("using") + "=" + body.get("value"));
+            }
+            return elementId;
+        }
+
+        private FakeElement element(Object reference) {
+            Object elementId = reference instanceof Map ? ((Map<?, ?>) reference).get(ELEMENT_KEY) : reference;
+            FakeElement element = elements.get(String.valueOf(elementId));
+            if (element == null) {
+                throw new WebDriverError(404, "stale element reference", "Element " + elementId + " is stale");
+            }
+            return element;
+        }
+
+        private Object elementCommand(String method, String[] path) {
+            FakeElement element = element(path[3]);
+            switch (path[4]) {
+                case "text":
+                    return element.displayed ? element.text : "";
+                case "displayed":
+                    return element.displayed;
+                case "enabled":
+                    return true;
+                case "selected":
+                    return false;
+                case "name":
+                    return element.tagName;
+                case "attribute":
+                case "property":
+                    return "value".equals(path[5]) ? element.value : null;
+                case "clear":
+                    element.value = "";
+                    return null;
+                case "value":
+                    return null;
+                case "rect":
+                    Map<String, Object> rect = new LinkedHashMap<>();
+                    rect.put("x", 10);
+                    rect.put("y", 10);
+                    rect.put("width", 100);
+                    rect.put("height", 20);
+                    return rect;
+                case "screenshot":
+                    return screenshotBase64;
+                default:
+                    return null;
+            }
+        }
+
+        private Object execute(String script, List<?> args, boolean async) {
+            if (script.startsWith("/* isDisplayed */")) {
+                return element(args.get(0)).displayed;
+            }
+            if (script.startsWith("/* getAttribute */")) {
+                return "value".equals(args.get(1)) ? element(args.get(0)).value : null;
+            }
+            if (!args.isEmpty() && args.get(0) instanceof List) {
+                return batch((List<?>) args.get(0));
+            }
+            if (args.size() == 2 && args.get(0) instanceof Map && args.get(1) instanceof Boolean) {
+                // State check of a cached element; fake elements are never disabled
+                return element(args.get(0)).displayed;
+            }
+            if (async && args.size() >= 3 && args.get(0) instanceof Map && args.get(1) instanceof String) {
+                return awaitCondition((Map<?, ?>) args.get(0), (String) args.get(1), ((Number) args.get(2)).longValue());
+            }
+            if (async && args.size() == 2 && args.get(0) instanceof Number) {
+                // Performance capture: only the page clock is known
+                Map<String, Object> sample = new LinkedHashMap<>();
+                sample.put("ready", args.get(1) != null ? args.get(1) : pageTime());
+                return sample;
+            }
+            if (script.startsWith("return performance.now()")) {
+                return pageTime();
+            }
+            if (script.startsWith("return true")) {
+                return true;
+            }
+            if (script.contains("document.readyState")) {
+                // The fake page is loaded as soon as its URL is set
+                return true;
+            }
+            return null;
+        }
+
+        /**
+         * Milliseconds since the last navigation, like performance.now() in a browser.
+         */
+        private double pageTime() {
+            return (System.nanoTime() - navigatedAt) / 1_000_000.0;
+        }
+
+        private Object batch(List<?> items) {
+            List<Object> results = new ArrayList<>();
+            boolean fill = !items.isEmpty() && ((Map<?, ?>) items.get(0)).containsKey("locator");
+            for (int i = 0; i < items.size(); i++) {
+                Map<?, ?> item = (Map<?, ?>) items.get(i);
+                Map<?, ?> locator = fill ? (Map<?, ?>) item.get("locator") : item;
+                String elementId = elementIdsByKey.get(key(String.valueOf(locator.get("using")),
+                    String.valueOf(locator.get("value"))));
+                FakeElement element = elementId == null ? null : elements.get(elementId);
+                if (fill) {
+                    if (element == null || !element.displayed) {
+                        results.add(i);
+                    } else {
+                        element.value = String.valueOf(item.get("value"));
+                    }
+                } else if (element == null) {
+                    results.add(null);
+                } else {
+                    Map<String, Object> state = new LinkedHashMap<>();
+                    state.put("text", element.displayed ? element.text : "");
+                    state.put("value", element.value);
+                    state.put("displayed", element.displayed);
+                    results.add(state);
+                }
+            }
+            return results;
+        }
+
+        private Object awaitCondition(Map<?, ?> locator, String condition, long timeoutMillis) {
+            String elementId = elementIdsByKey.get(key(String.valueOf(locator.get("using")),
+                String.valueOf(locator.get("value"))));
+            FakeElement element = elementId == null ? null : elements.get(elementId);
+            boolean shown = element != null && element.displayed;
+            boolean met;
+            switch (condition) {
+                case "present":
+                    met = element != null;
+                    break;
+                case "invisible":
+                    met = !shown;
+                    break;
+                default:
+                    met = shown;
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("met", met);
+            if (met && element != null && !"invisible".equals(condition)) {
+                result.put("element", reference(elementId));
+            }
+            if (!met) {
+                // The page never changes, so an unmet condition stays unmet until the script times out
+                try {
+                    Thread.sleep(timeoutMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return result;
+        }
+
+        private Object cookies(String method, String[] path, Map<String, Object> body) {
+            if ("POST".equals(method)) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> cookie = (Map<String, Object>) body.get("cookie");
+                cookies.put(String.valueOf(cookie.get("name")), cookie);
+                return null;
+            }
+            if ("DELETE".equals(method)) {
+                if (path.length > 3) {
+                    cookies.remove(path[3]);
+                } else {
+                    cookies.clear();
+                }
+                return null;
+            }
+            if (path.length > 3) {
+                Map<String, Object> cookie = cookies.get(path[3]);
+                if (cookie == null) {
+                    throw new WebDriverError(404, "no such cookie", "No cookie " + path[3]);
+                }
+                return cookie;
+            }
+            return new ArrayList<>(cookies.values());
+        }
+    }
+
+    private static final class WebDriverError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+        private final String error;
+
+        private WebDriverError(int status, String error, String message) {
+            super(message);
+            this.status = status;
+            this.error = error;
+        }
+    }
+}
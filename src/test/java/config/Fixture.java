@@ -0,0 +1,46 @@
+package config;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One provisioned MP and contract pair, claimed by a single test.
+ */
+public class Fixture {
+    private final FixtureType type;
+    private final String mpId;
+    private final String contractId;
+    private final Map<String, Object> attributes;
+
+    Fixture(FixtureType type, String mpId, String contractId, Map<String, Object> attributes) {
+        this.type = type;
+        this.mpId = mpId;
+        this.contractId = contractId;
+        this.attributes = Collections.unmodifiableMap(attributes);
+    }
+
+    public FixtureType getType() {
+        return type;
+    }
+
+    public String getMpId() {
+        return mpId;
+    }
+
+    public String getContractId() {
+        return contractId;
+    }
+
+    /**
+     * Gets every field the fixture API returned for this record.
+     * @return Raw record
+     */
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return type + "[mp=" + mpId + ", contract=" + contractId + "]";
+    }
+}
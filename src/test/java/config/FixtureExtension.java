@@ -0,0 +1,46 @@
+package config;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.commons.support.AnnotationSupport;
+import java.util.Optional;
+
+/**
+ * JUnit extension behind {@link UsesFixtures}: prefetches the declared records before the class
+ * runs and resolves {@link Fixture} parameters with a claimed record.
+ */
+public class FixtureExtension implements BeforeAllCallback, ParameterResolver {
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        AnnotationSupport.findAnnotation(context.getRequiredTestClass(), UsesFixtures.class)
+            .ifPresent(fixtures -> {
+                for (FixtureType type : fixtures.value()) {
+                    FixtureProvisioner.getInstance().prefetch(type, fixtures.count());
+                }
+            });
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == Fixture.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Optional<UsesFixtures> declared = AnnotationSupport.findAnnotation(
+            parameterContext.getDeclaringExecutable(), UsesFixtures.class);
+        if (declared.isEmpty()) {
+            declared = AnnotationSupport.findAnnotation(extensionContext.getRequiredTestClass(), UsesFixtures.class);
+        }
+        FixtureType[] types = declared.map(UsesFixtures::value).orElse(new FixtureType[0]);
+        if (types.length != 1) {
+            throw new ParameterResolutionException("A Fixture parameter needs exactly one type in @UsesFixtures, found "
+                + types.length);
+        }
+        return FixtureProvisioner.getInstance().claim(types[0]);
+    }
+}
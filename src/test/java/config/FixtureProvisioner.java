@@ -0,0 +1,287 @@
+package config;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates UseCase9 test data through the fixture API and keeps a pool of ready records per {@link FixtureType}.
+ * Records are created in batches on a few worker threads, ahead of the tests that claim them;
+ * each claim tops the pool up again in the background.
+ * <p>
+ * The API is a single endpoint, {@code POST <fixture.api.url>/fixtures} with
+ * {@code {"mpStatus": "ACTIVE", "contractStatus": "INACTIVE", "count": 5}}, answering
+ * {@code {"fixtures": [{"mpId": "...", "contractId": "...", ...}, ...]}}.
+ * {@link FixtureStubServer} implements it for local runs; with "fixture.stub.enabled" it is started
+ * on a free port and used instead of "fixture.api.url".
+ */
+public class FixtureProvisioner {
+    private static final Logger logger = LoggerFactory.getLogger(FixtureProvisioner.class);
+    // Batches a waiting claim lets fail before it gives up; a failed batch is requested again
+    private static final int MAX_FAILED_BATCHES = 3;
+    private static FixtureProvisioner instance;
+
+    private final URL endpoint;
+    private final int poolSize;
+    private final int batchSize;
+    private final long claimTimeoutMillis;
+    private final ExecutorService workers;
+    private final Map<FixtureType, BlockingQueue<Fixture>> ready = new EnumMap<>(FixtureType.class);
+    private final Map<FixtureType, AtomicInteger> pending = new EnumMap<>(FixtureType.class);
+    private final Map<FixtureType, AtomicInteger> waiting = new EnumMap<>(FixtureType.class);
+    private final Map<FixtureType, AtomicReference<RuntimeException>> failures = new EnumMap<>(FixtureType.class);
+    private final Map<FixtureType, AtomicInteger> failedBatches = new EnumMap<>(FixtureType.class);
+    private final Json json = new Json();
+    private volatile boolean closed;
+
+    /**
+     * Creates a provisioner for the given fixture API.
+     * @param apiUrl Base URL of the fixture API
+     * @param poolSize Ready records kept per fixture type
+     * @param batchSize Records created per API call
+     * @param concurrency API calls running at the same time
+     * @param claimTimeoutSeconds How long a claim waits for a record
+     */
+    public FixtureProvisioner(URL apiUrl, int poolSize, int batchSize, int concurrency, long claimTimeoutSeconds) {
+        if (batchSize < 1 || concurrency < 1 || poolSize < 0) {
+            throw new IllegalArgumentException("Invalid fixture settings: pool=" + poolSize
+                + ", batch=" + batchSize + ", concurrency=" + concurrency);
+        }
+        this.endpoint = resolve(apiUrl, "fixtures");
+        this.poolSize = poolSize;
+        this.batchSize = batchSize;
+        this.claimTimeoutMillis = TimeUnit.SECONDS.toMillis(claimTimeoutSeconds);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "fixture-provisioner-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (FixtureType type : FixtureType.values()) {
+            ready.put(type, new LinkedBlockingQueue<>());
+            pending.put(type, new AtomicInteger());
+            waiting.put(type, new AtomicInteger());
+            failures.put(type, new AtomicReference<>());
+            failedBatches.put(type, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Gets the provisioner of the active environment, configured by the "fixture.*" properties.
+     * The types in "fixture.warmup" start filling their pools on first use.
+     * @return Shared provisioner
+     */
+    public static synchronized FixtureProvisioner getInstance() {
+        if (instance == null) {
+            String url = TestConfig.getProperty("fixture.api.url", "");
+            FixtureStubServer stub = null;
+            if (TestConfig.getBooleanProperty("fixture.stub.enabled", false)) {
+                // The stub listens on a free port, so its actual URL replaces the configured one
+                stub = new FixtureStubServer().start();
+                url = stub.getUrl().toString();
+            } else if (url.isBlank()) {
+                throw new RuntimeException("fixture.api.url is not set for environment " + TestConfig.getEnvironment());
+            }
+            try {
+                instance = new FixtureProvisioner(URI.create(url).toURL(),
+                    TestConfig.getIntProperty("fixture.pool.size", 2),
+                    TestConfig.getIntProperty("fixture.batch.size", 5),
+                    TestConfig.getIntProperty("fixture.concurrency", 4),
+                    TestConfig.getLongProperty("fixture.claim.timeout", 60));
+            } catch (MalformedURLException | IllegalArgumentException e) {
+                throw new RuntimeException("Invalid fixture.api.url: " + url, e);
+            }
+            for (String type : TestConfig.getProperty("fixture.warmup", "").split(",")) {
+                if (!type.isBlank()) {
+                    instance.prefetch(FixtureType.valueOf(type.trim().toUpperCase()), 0);
+                }
+            }
+            FixtureProvisioner provisioner = instance;
+            FixtureStubServer server = stub;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                provisioner.shutdown();
+                if (server != null) {
+                    server.stop();
+                }
+            }));
+        }
+        return instance;
+    }
+
+    /**
+     * Starts creating records so that the given number of claims, plus the pool, can be served without waiting.
+     * @param type Fixture type
+     * @param count Records about to be claimed
+     */
+    public void prefetch(FixtureType type, int count) {
+        topUp(type, count + poolSize);
+    }
+
+    /**
+     * Takes a ready record of a type, waiting for one to be created if the pool is empty.
+     * The record belongs to the caller; it is never handed out twice.
+     * @param type Fixture type
+     * @return Claimed record
+     */
+    public Fixture claim(FixtureType type) {
+        return ActionMetrics.time("FixtureProvisioner", "claim", type, ActionMetrics.PHASE_WAIT, () -> {
+            BlockingQueue<Fixture> queue = ready.get(type);
+            Fixture fixture = queue.poll();
+            if (fixture == null) {
+                fixture = awaitRecord(type);
+            }
+            topUp(type, poolSize);
+            return fixture;
+        });
+    }
+
+    /**
+     * Gets the number of records ready to be claimed.
+     * @param type Fixture type
+     * @return Pool size
+     */
+    public int getReady(FixtureType type) {
+        return ready.get(type).size();
+    }
+
+    public void shutdown() {
+        closed = true;
+        workers.shutdownNow();
+    }
+
+    /**
+     * Waits for a record, requesting the batches it needs. Batches that fail are requested again
+     * on the next poll, until {@link #MAX_FAILED_BATCHES} failed while this claim waited and none is in flight.
+     */
+    private Fixture awaitRecord(FixtureType type) {
+        long deadline = System.currentTimeMillis() + claimTimeoutMillis;
+        AtomicInteger claimers = waiting.get(type);
+        claimers.incrementAndGet();
+        failures.get(type).set(null);
+        int failedBefore = failedBatches.get(type).get();
+        try {
+            while (true) {
+                // Every waiting claim needs a record on top of the pool kept for the next tests
+                topUp(type, poolSize + claimers.get());
+                Fixture fixture = ready.get(type).poll(200, TimeUnit.MILLISECONDS);
+                if (fixture != null) {
+                    return fixture;
+                }
+                RuntimeException failure = failures.get(type).get();
+                if (failure != null && pending.get(type).get() == 0
+                        && failedBatches.get(type).get() - failedBefore >= MAX_FAILED_BATCHES) {
+                    throw new RuntimeException("Failed to provision " + type + " after "
+                        + MAX_FAILED_BATCHES + " failed batches", failure);
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    throw new RuntimeException("No " + type + " fixture within "
+                        + TimeUnit.MILLISECONDS.toSeconds(claimTimeoutMillis) + " seconds");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a " + type + " fixture", e);
+        } finally {
+            claimers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Requests full batches until ready plus pending records reach the target.
+     */
+    private void topUp(FixtureType type, int target) {
+        AtomicInteger inFlight = pending.get(type);
+        synchronized (inFlight) {
+            int missing = target - ready.get(type).size() - inFlight.get();
+            while (missing > 0) {
+                inFlight.addAndGet(batchSize);
+                missing -= batchSize;
+                workers.execute(() -> createBatch(type, batchSize));
+            }
+        }
+    }
+
+    private void createBatch(FixtureType type, int count) {
+        try {
+            List<Fixture> created = ActionMetrics.time("FixtureProvisioner", "createBatch", type,
+                ActionMetrics.PHASE_COMMAND, () -> create(type, count));
+            ready.get(type).addAll(created);
+            failures.get(type).set(null);
+            logger.debug("Provisioned {} {} fixture(s)", created.size(), type);
+        } catch (RuntimeException e) {
+            if (closed) {
+                return;
+            }
+            failures.get(type).set(e);
+            failedBatches.get(type).incrementAndGet();
+            logger.error("Failed to provision {} {} fixture(s): {}", count, type, e.getMessage());
+        } finally {
+            pending.get(type).addAndGet(-count);
+        }
+    }
+
+    private List<Fixture> create(FixtureType type, int count) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("mpStatus", type.getMpStatus());
+        request.put("contractStatus", type.getContractStatus());
+        request.put("count", count);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(60000);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(json.toJson(request).getBytes(StandardCharsets.UTF_8));
+            }
+            int status = connection.getResponseCode();
+            if (status / 100 != 2) {
+                throw new RuntimeException("Fixture API answered " + status + " for " + type);
+            }
+            try (InputStream input = connection.getInputStream()) {
+                Map<String, Object> response = json.toType(
+                    new String(input.readAllBytes(), StandardCharsets.UTF_8), Json.MAP_TYPE);
+                List<Fixture> fixtures = new ArrayList<>();
+                for (Object item : (List<?>) response.get("fixtures")) {
+                    Map<String, Object> record = new LinkedHashMap<>();
+                    ((Map<?, ?>) item).forEach((key, value) -> record.put(String.valueOf(key), value));
+                    fixtures.add(new Fixture(type, String.valueOf(record.get("mpId")),
+                        String.valueOf(record.get("contractId")), record));
+                }
+                return fixtures;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Fixture API call to " + endpoint + " failed", e);
+        }
+    }
+
+    private static URL resolve(URL base, String path) {
+        try {
+            String url = base.toString();
+            return URI.create(url.endsWith("/") ? url + path : url + "/" + path).toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid fixture API URL: " + base, e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FixtureProvisionerTest {
+    private FixtureStubServer stub;
+    private FixtureProvisioner provisioner;
+
+    @BeforeEach
+    void start() {
+        stub = new FixtureStubServer()
+            .withLatency(Duration.ofMillis(50), Duration.ofMillis(5))
+            .withFailures(1)
+            .start();
+        provisioner = new FixtureProvisioner(stub.getUrl(), 2, 3, 4, 30);
+    }
+
+    @AfterEach
+    void stop() {
+        provisioner.shutdown();
+        stub.stop();
+    }
+
+    /**
+     * The first API call fails; every claim must still get its own record of the right type.
+     */
+    @Test
+    void concurrentClaimsGetUniqueRecords() throws Exception {
+        int claimsPerType = 4;
+        List<Future<Fixture>> claims = new ArrayList<>();
+        ExecutorService testThreads = Executors.newFixedThreadPool(FixtureType.values().length * claimsPerType);
+        try {
+            for (FixtureType type : FixtureType.values()) {
+                for (int i = 0; i < claimsPerType; i++) {
+                    claims.add(testThreads.submit(() -> provisioner.claim(type)));
+                }
+            }
+            Set<String> mpIds = new HashSet<>();
+            for (int i = 0; i < claims.size(); i++) {
+                Fixture fixture = claims.get(i).get();
+                FixtureType expected = FixtureType.values()[i / claimsPerType];
+                assertEquals(expected, fixture.getType());
+                assertEquals(expected.getMpStatus(), fixture.getAttributes().get("mpStatus"));
+                assertEquals(expected.getContractStatus(), fixture.getAttributes().get("contractStatus"));
+                assertTrue(mpIds.add(fixture.getMpId()), "Record claimed twice: " + fixture);
+            }
+        } finally {
+            testThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * A lone claim is served by a single batch; when that batch fails it must be requested again.
+     */
+    @Test
+    void singleClaimRetriesFailedBatch() {
+        Fixture fixture = provisioner.claim(FixtureType.values()[0]);
+        assertEquals(FixtureType.values()[0], fixture.getType());
+    }
+
+    @Test
+    void claimFailsAfterRepeatedFailedBatches() {
+        stub.withFailures(Integer.MAX_VALUE);
+        RuntimeException failure = assertThrows(RuntimeException.class,
+            () -> provisioner.claim(FixtureType.values()[0]));
+        assertTrue(failure.getMessage().startsWith("Failed to provision"), failure.getMessage());
+    }
+}
@@ -0,0 +1,148 @@
+package config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the fixture API used by {@link FixtureProvisioner}.
+ * Every call takes a fixed latency plus a per-record cost, like a backend writing to its database,
+ * and returns records with generated ids.
+ * Responds without delayed-ACK stalls only with "sun.net.httpserver.nodelay=true", which the
+ * surefire configuration sets for the test JVM, like for {@link FakeWebDriverServer}.
+ */
+public class FixtureStubServer {
+    private static final Logger logger = LoggerFactory.getLogger(FixtureStubServer.class);
+
+    private final Json json = new Json();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger recordsCreated = new AtomicInteger();
+    private Duration callLatency = Duration.ZERO;
+    private Duration recordLatency = Duration.ZERO;
+    private int failuresLeft;
+    private HttpServer server;
+
+    /**
+     * Sets how long each call and each created record takes.
+     * @param perCall Fixed time per API call
+     * @param perRecord Additional time per record in the call
+     * @return this server
+     */
+    public FixtureStubServer withLatency(Duration perCall, Duration perRecord) {
+        this.callLatency = perCall;
+        this.recordLatency = perRecord;
+        return this;
+    }
+
+    /**
+     * Makes the next calls fail with HTTP 500.
+     * @param failures Number of failing calls
+     * @return this server
+     */
+    public synchronized FixtureStubServer withFailures(int failures) {
+        this.failuresLeft = failures;
+        return this;
+    }
+
+    /**
+     * Starts the server on a free local port.
+     * @return this server
+     */
+    public FixtureStubServer start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start fixture stub server", e);
+        }
+        server.createContext("/fixtures", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fixture-stub");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        logger.info("Fixture stub server listening on {}", getUrl());
+        return this;
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    public URL getUrl() {
+        try {
+            return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/").toURL();
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public int getCalls() {
+        return calls.get();
+    }
+
+    public int getRecordsCreated() {
+        return recordsCreated.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int call = calls.incrementAndGet();
+        Map<String, Object> request;
+        try (InputStream input = exchange.getRequestBody()) {
+            request = json.toType(new String(input.readAllBytes(), StandardCharsets.UTF_8), Json.MAP_TYPE);
+        }
+        synchronized (this) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                respond(exchange, 500, Map.of("error", "stub failure on call " + call));
+                return;
+            }
+        }
+        int count = ((Number) request.get("count")).intValue();
+        try {
+            Thread.sleep(callLatency.plus(recordLatency.multipliedBy(count)).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Map<String, Object>> fixtures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int id = recordsCreated.incrementAndGet();
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("mpId", "mp-" + id);
+            record.put("mpStatus", request.get("mpStatus"));
+            record.put("contractId", "contract-" + id);
+            record.put("contractStatus", request.get("contractStatus"));
+            fixtures.add(record);
+        }
+        respond(exchange, 201, Map.of("fixtures", fixtures));
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = json.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package config;
+
+/**
+ * Test data combinations of the UseCase9 matrix: an MP with a contract, each either active or inactive. {@link FixtureProvisioner} creates them through the fixture API.
+ */
+public enum FixtureType {
+    ACTIVE_MP_ACTIVE_CONTRACT(true, true),
+    ACTIVE_MP_INACTIVE_CONTRACT(true, false),
+    INACTIVE_MP_ACTIVE_CONTRACT(false, true),
+    INACTIVE_MP_INACTIVE_CONTRACT(false, false);
+
+    private final boolean mpActive;
+    private final boolean contractActive;
+
+    FixtureType(boolean mpActive, boolean contractActive) {
+        this.mpActive = mpActive;
+        this.contractActive = contractActive;
+    }
+
+    public String getMpStatus() {
+        return mpActive ? "ACTIVE" : "INACTIVE";
+    }
+
+    public String getContractStatus() {
+        return contractActive ? "ACTIVE" : "INACTIVE";
+    }
+}
@@ -0,0 +1,248 @@
+package config;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last seconds of a test's screen in memory, so a failure can be inspected
+ * from a few steps before it happened. Enabled with "recording.enabled".
+ * Chromium sessions use the DevTools screencast. Other browsers take a screenshot after a
+ * {@link BasePage} step, at most every "recording.interval.ms"; it runs on the test's thread, as a
+ * WebDriver session must not receive commands from two threads at once. Frames older than "recording.seconds" are dropped, and a session
+ * never holds more than "recording.max.mb" of frames. Nothing is written for passing tests;
+ * a failed test's frames are encoded as Motion JPEG and written by {@link ScreenshotService}.
+ */
+public class FrameRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(FrameRecorder.class);
+    private static final Map<WebDriver, Recording> recordings = new ConcurrentHashMap<>();
+    private static final Set<DevTools> screencastListeners = ConcurrentHashMap.newKeySet();
+    private static final Map<DevTools, Recording> screencasts = new ConcurrentHashMap<>();
+
+    private FrameRecorder() {
+    }
+
+    public static boolean isEnabled() {
+        return TestConfig.getBooleanProperty("recording.enabled", false);
+    }
+
+    /**
+     * Starts recording a session, unless recording is disabled or the session is already recorded.
+     * @param driver Session of the running test
+     */
+    public static void start(WebDriver driver) {
+        if (driver == null || !isEnabled() || recordings.containsKey(driver)) {
+            return;
+        }
+        Recording recording = new Recording(
+            TimeUnit.SECONDS.toNanos(TestConfig.getLongProperty("recording.seconds", 10)),
+            TestConfig.getLongProperty("recording.max.mb", 32) * 1024 * 1024);
+        recordings.put(driver, recording);
+        Optional<DevTools> devTools = DevToolsSessions.get(driver);
+        try {
+            if (devTools.isPresent()) {
+                DevTools connection = devTools.get();
+                screencasts.put(connection, recording);
+                recording.stopper = () -> {
+                    screencasts.remove(connection, recording);
+                    connection.send(new Command<>("Page.stopScreencast", Collections.emptyMap()));
+                };
+                startScreencast(connection);
+            } else if (driver instanceof TakesScreenshot) {
+                recording.stepIntervalNanos = TimeUnit.MILLISECONDS.toNanos(
+                    TestConfig.getLongProperty("recording.interval.ms", 500));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to start recording: {}", e.getMessage());
+            discard(driver);
+        }
+    }
+
+    /**
+     * Takes a frame of a session recorded with screenshots, unless the last one is more recent than
+     * "recording.interval.ms". Called by page objects after each step, on the thread that drives the session.
+     * @param driver Session that just ran a step
+     */
+    static void afterStep(WebDriver driver) {
+        Recording recording = driver == null ? null : recordings.get(driver);
+        if (recording == null || recording.stepIntervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (recording.lastStepFrame != 0 && now - recording.lastStepFrame < recording.stepIntervalNanos) {
+            return;
+        }
+        recording.lastStepFrame = now;
+        capture(driver, recording);
+    }
+
+    /**
+     * Stops recording a session and drops its frames. Called for passing tests and released sessions.
+     * @param driver Recorded session
+     */
+    public static void discard(WebDriver driver) {
+        Recording recording = driver == null ? null : recordings.remove(driver);
+        if (recording != null) {
+            recording.stop();
+        }
+    }
+
+    /**
+     * Stops recording a session and queues its frames for writing.
+     * @param driver Recorded session
+     * @param name Name prefix, usually the test method name
+     * @param browser Browser of the session
+     * @return Path the recording will be written to, or null when nothing was recorded
+     */
+    public static Path flush(WebDriver driver, String name, Browser browser) {
+        Recording recording = driver == null ? null : recordings.remove(driver);
+        if (recording == null) {
+            return null;
+        }
+        recording.stop();
+        List<byte[]> frames = recording.drain();
+        if (frames.isEmpty()) {
+            return null;
+        }
+        Path destination = ScreenshotService.saveRecording(name, browser, "mjpeg", () -> encode(frames));
+        logger.info("Recording of {} frame(s) queued for: {}", frames.size(), destination.toAbsolutePath());
+        return destination;
+    }
+
+    private static void startScreencast(DevTools devTools) {
+        // Frames are routed to the session's current recording, so the listener is added once per connection
+        if (screencastListeners.add(devTools)) {
+            devTools.addListener(new Event<Map<String, Object>>("Page.screencastFrame",
+                input -> input.read(Json.MAP_TYPE)), frame -> {
+                    devTools.send(new Command<>("Page.screencastFrameAck", Map.of("sessionId", frame.get("sessionId"))));
+                    Recording recording = screencasts.get(devTools);
+                    if (recording != null) {
+                        recording.add(Base64.getDecoder().decode((String) frame.get("data")));
+                    }
+                });
+        }
+        devTools.send(new Command<>("Page.startScreencast", Map.of(
+            "format", "jpeg",
+            "quality", TestConfig.getIntProperty("recording.quality", 60),
+            "maxWidth", TestConfig.getIntProperty("recording.max.width", 1280),
+            "maxHeight", TestConfig.getIntProperty("recording.max.height", 800))));
+    }
+
+    private static void capture(WebDriver driver, Recording recording) {
+        try {
+            recording.add(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES));
+        } catch (RuntimeException e) {
+            logger.debug("Skipped recording frame: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Concatenates the frames as JPEG images, a Motion JPEG stream most players open.
+     */
+    private static byte[] encode(List<byte[]> frames) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            try {
+                if (frame.length > 1 && (frame[0] & 0xFF) == 0xFF && (frame[1] & 0xFF) == 0xD8) {
+                    out.write(frame);
+                    continue;
+                }
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(frame));
+                if (image == null) {
+                    continue;
+                }
+                // The JPEG writer rejects images with an alpha channel
+                BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+                rgb.getGraphics().drawImage(image, 0, 0, null);
+                ImageIO.write(rgb, "jpg", out);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to encode recording frame", e);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Ring buffer of one session's frames, bounded by age and total size.
+     */
+    private static final class Recording {
+        private final long windowNanos;
+        private final long maxBytes;
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private long bytes;
+        private volatile Runnable stopper;
+        // Screenshot recordings only; touched by the thread driving the session
+        private volatile long stepIntervalNanos;
+        private long lastStepFrame;
+
+        private Recording(long windowNanos, long maxBytes) {
+            this.windowNanos = windowNanos;
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized void add(byte[] data) {
+            if (data.length > maxBytes) {
+                return;
+            }
+            long now = System.nanoTime();
+            frames.addLast(new Frame(now, data));
+            bytes += data.length;
+            // The newest frame is kept even when old, a screencast only sends frames when the page changes
+            while (bytes > maxBytes || (frames.size() > 1 && now - frames.peekFirst().timestamp > windowNanos)) {
+                bytes -= frames.removeFirst().data.length;
+            }
+        }
+
+        private synchronized List<byte[]> drain() {
+            List<byte[]> data = new ArrayList<>(frames.size());
+            frames.forEach(frame -> data.add(frame.data));
+            frames.clear();
+            bytes = 0;
+            return data;
+        }
+
+        private void stop() {
+            Runnable stop = stopper;
+            if (stop != null) {
+                try {
+                    stop.run();
+                } catch (RuntimeException e) {
+                    logger.debug("Failed to stop recording: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final class Frame {
+        private final long timestamp;
+        private final byte[] data;
+
+        private Frame(long timestamp, byte[] data) {
+            this.timestamp = timestamp;
+            this.data = data;
+        }
+    }
+}
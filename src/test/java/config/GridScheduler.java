@@ -0,0 +1,264 @@
+package config;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Creates RemoteWebDriver sessions on one or more Selenium Grid endpoints.
+ * Each endpoint has a slot capacity, read from its /status or from "grid.slots"; a Grid also reports
+ * which browser each slot runs, so sessions of a browser only count against that browser's slots.
+ * Sessions go to the least loaded endpoint; callers queue while every slot is busy,
+ * and a failed session creation is retried on another endpoint.
+ */
+public class GridScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(GridScheduler.class);
+
+    private final List<GridNode> nodes;
+    private final int retries;
+    private final long queueTimeoutMillis;
+    private final Object lock = new Object();
+
+    /**
+     * Creates a scheduler for the given endpoints.
+     * @param urls Grid or standalone server URLs, e.g. "http://localhost:4444"
+     * @param defaultSlots Capacity used when an endpoint does not report one
+     * @param retries How many other endpoints to try when session creation fails
+     * @param queueTimeoutSeconds How long a caller waits for a free slot
+     */
+    public GridScheduler(List<String> urls, int defaultSlots, int retries, long queueTimeoutSeconds) {
+        if (urls.isEmpty()) {
+            throw new RuntimeException("Remote execution needs at least one URL in grid.urls");
+        }
+        List<GridNode> discovered = new ArrayList<>();
+        for (String url : urls) {
+            GridNode node = readNode(toUrl(url.trim()), defaultSlots);
+            logger.info("Grid endpoint {} with {} slot(s) {}", node.url, node.capacity,
+                node.browserSlots.isEmpty() ? "for any browser" : node.browserSlots);
+            discovered.add(node);
+        }
+        this.nodes = Collections.unmodifiableList(discovered);
+        this.retries = retries;
+        this.queueTimeoutMillis = TimeUnit.SECONDS.toMillis(queueTimeoutSeconds);
+    }
+
+    /**
+     * Creates a scheduler from the "grid.*" properties of the active environment.
+     * @return Scheduler for "grid.urls"
+     */
+    public static GridScheduler fromConfig() {
+        List<String> urls = new ArrayList<>();
+        for (String url : TestConfig.getProperty("grid.urls", "").split(",")) {
+            if (!url.isBlank()) {
+                urls.add(url.trim());
+            }
+        }
+        return new GridScheduler(urls,
+            TestConfig.getIntProperty("grid.slots", 1),
+            TestConfig.getIntProperty("grid.session.retries", 2),
+            TestConfig.getLongProperty("grid.queue.timeout", 300));
+    }
+
+    /**
+     * Creates a remote session on the least loaded endpoint with a free slot.
+     * Blocks while all slots are in use. The slot is freed when the session quits.
+     * @param capabilities Browser options for the new session
+     * @return Remote session
+     */
+    public RemoteWebDriver createSession(Capabilities capabilities) {
+        long deadline = System.currentTimeMillis() + queueTimeoutMillis;
+        Set<GridNode> failed = new HashSet<>();
+        WebDriverException lastFailure = null;
+        String browser = capabilities.getBrowserName().toLowerCase();
+        for (int attempt = 0; attempt <= retries; attempt++) {
+            long start = System.nanoTime();
+            GridNode node = reserve(browser, failed, deadline);
+            if (node == null) {
+                break;
+            }
+            ActionMetrics.record("GridScheduler", "awaitSlot", node.url, ActionMetrics.PHASE_WAIT,
+                System.nanoTime() - start);
+            try {
+                AtomicBoolean slotHeld = new AtomicBoolean(true);
+                return new RemoteWebDriver(node.url, capabilities) {
+                    @Override
+                    public void quit() {
+                        try {
+                            super.quit();
+                        } finally {
+                            if (slotHeld.getAndSet(false)) {
+                                free(node, browser);
+                            }
+                        }
+                    }
+                };
+            } catch (WebDriverException e) {
+                free(node, browser);
+                failed.add(node);
+                lastFailure = e;
+                logger.warn("Session creation on {} failed (attempt {}): {}",
+                    node.url, attempt + 1, String.valueOf(e.getMessage()).split("\n")[0]);
+            }
+        }
+        throw new RuntimeException("Failed to create a remote " + capabilities.getBrowserName()
+            + " session on " + nodes.size() + " Grid endpoint(s)", lastFailure);
+    }
+
+    /**
+     * Gets the endpoints with their capacity and current load, for logging.
+     * @return Description per endpoint
+     */
+    public List<String> describe() {
+        List<String> description = new ArrayList<>();
+        synchronized (lock) {
+            nodes.forEach(node -> description.add(node.url + " " + node.inUse + "/" + node.capacity));
+        }
+        return description;
+    }
+
+    private GridNode reserve(String browser, Set<GridNode> excluded, long deadline) {
+        synchronized (lock) {
+            while (true) {
+                // Endpoints without a slot for the browser would never free one
+                if (nodes.stream().noneMatch(node -> !excluded.contains(node) && node.capacity(browser) > 0)) {
+                    return null;
+                }
+                GridNode best = nodes.stream()
+                    .filter(node -> !excluded.contains(node) && node.hasFreeSlot(browser))
+                    .min(Comparator.comparingDouble(node -> (double) node.inUse / node.capacity))
+                    .orElse(null);
+                if (best != null) {
+                    best.inUse++;
+                    best.inUseByBrowser.merge(browser, 1, Integer::sum);
+                    return best;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new RuntimeException("No free Grid slot within "
+                        + TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMillis) + " seconds: " + describe());
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for a Grid slot", e);
+                }
+            }
+        }
+    }
+
+    private void free(GridNode node, String browser) {
+        synchronized (lock) {
+            node.inUse--;
+            node.inUseByBrowser.merge(browser, -1, Integer::sum);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Reads the capacity of a Grid or standalone server from its /status: per node that is up, its slots
+     * capped by its maxSessions, in total and per browser of the slot stereotypes. A server that only
+     * reports maxSessions, or none, takes sessions of any browser up to that or the default.
+     */
+    private static GridNode readNode(URL endpoint, int defaultSlots) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) URI.create(endpoint.toString()).resolve("status").toURL()
+                .openConnection();
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(5000);
+            try (InputStream input = connection.getInputStream()) {
+                Map<String, Object> status = new Json().toType(
+                    new String(input.readAllBytes(), StandardCharsets.UTF_8), Json.MAP_TYPE);
+                Map<?, ?> value = (Map<?, ?>) status.get("value");
+                int slots = 0;
+                Map<String, Integer> browserSlots = new HashMap<>();
+                if (value != null && value.get("nodes") instanceof List) {
+                    for (Object node : (List<?>) value.get("nodes")) {
+                        Map<?, ?> details = (Map<?, ?>) node;
+                        Object availability = details.get("availability");
+                        if (availability != null && !"UP".equalsIgnoreCase(String.valueOf(availability))) {
+                            continue;
+                        }
+                        int maxSessions = details.get("maxSessions") instanceof Number
+                            ? ((Number) details.get("maxSessions")).intValue() : Integer.MAX_VALUE;
+                        Map<String, Integer> nodeSlots = new HashMap<>();
+                        int nodeTotal = 0;
+                        if (details.get("slots") instanceof List) {
+                            for (Object slot : (List<?>) details.get("slots")) {
+                                Object stereotype = ((Map<?, ?>) slot).get("stereotype");
+                                Object browser = stereotype instanceof Map
+                                    ? ((Map<?, ?>) stereotype).get("browserName") : null;
+                                if (browser != null) {
+                                    nodeSlots.merge(String.valueOf(browser).toLowerCase(), 1, Integer::sum);
+                                }
+                                nodeTotal++;
+                            }
+                        }
+                        slots += Math.min(nodeTotal, maxSessions);
+                        nodeSlots.forEach((browser, count) ->
+                            browserSlots.merge(browser, Math.min(count, maxSessions), Integer::sum));
+                    }
+                } else if (value != null && value.get("maxSessions") instanceof Number) {
+                    slots = ((Number) value.get("maxSessions")).intValue();
+                }
+                if (slots > 0) {
+                    return new GridNode(endpoint, slots, browserSlots);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read capacity of {}: {}", endpoint, e.getMessage());
+        }
+        return new GridNode(endpoint, defaultSlots, Map.of());
+    }
+
+    private static URL toUrl(String url) {
+        try {
+            return URI.create(url.endsWith("/") ? url : url + "/").toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid Grid URL: " + url, e);
+        }
+    }
+
+    private static final class GridNode {
+        private final URL url;
+        private final int capacity;
+        // Slots per browser name; empty when the endpoint does not say, then any browser may use any slot
+        private final Map<String, Integer> browserSlots;
+        private final Map<String, Integer> inUseByBrowser = new HashMap<>();
+        private int inUse;
+
+        private GridNode(URL url, int capacity, Map<String, Integer> browserSlots) {
+            this.url = url;
+            this.capacity = capacity;
+            this.browserSlots = browserSlots;
+        }
+
+        private int capacity(String browser) {
+            return browserSlots.isEmpty() ? capacity : Math.min(capacity, browserSlots.getOrDefault(browser, 0));
+        }
+
+        private boolean hasFreeSlot(String browser) {
+            return inUse < capacity && inUseByBrowser.getOrDefault(browser, 0) < capacity(browser);
+        }
+    }
+}
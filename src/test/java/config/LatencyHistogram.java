@@ -0,0 +1,96 @@
+package config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with exponential buckets.
+ * Bucket i holds samples up to 50 microseconds * 2^i; the last bucket is unbounded.
+ */
+public class LatencyHistogram {
+    static final long BASE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    static final int BUCKETS = 24;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one sample.
+     * @param nanos Duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long scaled = (Math.max(nanos, 1) - 1) / BASE_NANOS;
+        int index = scaled == 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(scaled), BUCKETS);
+        counts[index].increment();
+        count.increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets the upper bound of a bucket.
+     * @param index Bucket index, 0 to {@link #BUCKETS} - 1
+     * @return Upper bound in nanoseconds
+     */
+    public static long getUpperBoundNanos(int index) {
+        return BASE_NANOS << index;
+    }
+
+    /**
+     * Gets the number of samples per bucket; the last entry counts samples above every bound.
+     * @return Bucket counts, {@link #BUCKETS} + 1 entries
+     */
+    public long[] getBucketCounts() {
+        long[] snapshot = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket that contains it.
+     * @param percentile Percentile between 0 and 100
+     * @return Estimated duration in nanoseconds, 0 if there are no samples
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = getBucketCounts();
+        long total = 0;
+        for (long bucket : snapshot) {
+            total += bucket;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(rank, 1)) {
+                return Math.min(getUpperBoundNanos(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+}
@@ -0,0 +1,91 @@
+package config;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of a {@link LoadRunner} run: completed and failed journeys, throughput and the
+ * latency histogram of every page-object step the journeys ran.
+ */
+public class LoadReport {
+    /** Phase of the whole-journey samples, next to the "wait" and "command" phases of the steps. */
+    public static final String PHASE_JOURNEY = "journey";
+
+    private final String name;
+    private final int users;
+    private final long completed;
+    private final Map<String, Long> failures;
+    private final Duration elapsed;
+    private final Map<String, LatencyHistogram> steps;
+
+    LoadReport(String name, int users, long completed, Map<String, Long> failures, Duration elapsed,
+               Map<String, LatencyHistogram> steps) {
+        this.name = name;
+        this.users = users;
+        this.completed = completed;
+        this.failures = Collections.unmodifiableMap(failures);
+        this.elapsed = elapsed;
+        this.steps = Collections.unmodifiableMap(steps);
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failures.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Gets the failures by exception type.
+     * @return Failure count per exception simple name
+     */
+    public Map<String, Long> getFailures() {
+        return failures;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Gets the completed journeys per second over the whole run, ramp-up included.
+     * @return Throughput
+     */
+    public double getThroughput() {
+        return elapsed.isZero() ? 0 : completed / (elapsed.toNanos() / 1e9);
+    }
+
+    /**
+     * Gets the latency histograms of the steps, keyed "component.action locator (phase)",
+     * e.g. "GooglePage.sendKeys By.name: q (command)" or "LoadRunner.journey (journey)".
+     * @return Histograms sorted by step
+     */
+    public Map<String, LatencyHistogram> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Gets a latency percentile of one step.
+     * @param step Step key, see {@link #getSteps()}
+     * @param percentile Percentile, e.g. 95
+     * @return Percentile in milliseconds, or -1 when the step did not run
+     */
+    public double getPercentileMillis(String step, double percentile) {
+        LatencyHistogram histogram = steps.get(step);
+        return histogram == null || histogram.getCount() == 0 ? -1 : histogram.getPercentileNanos(percentile) / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format(
+            "Load run %s: %d user(s), %d journey(s) completed, %d failed %s in %.1f s (%.2f/s)%n",
+            name, users, completed, getFailed(), failures, elapsed.toNanos() / 1e9, getThroughput()));
+        text.append(String.format("%-70s %8s %10s %10s %10s %10s%n", "step", "count", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        steps.forEach((step, histogram) -> text.append(String.format("%-70s %8d %10.1f %10.1f %10.1f %10.1f%n",
+            step, histogram.getCount(), histogram.getPercentileNanos(50) / 1e6, histogram.getPercentileNanos(90) / 1e6,
+            histogram.getPercentileNanos(99) / 1e6, histogram.getMaxNanos() / 1e6)));
+        return text.toString();
+    }
+}
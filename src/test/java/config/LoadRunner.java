@@ -0,0 +1,201 @@
+package config;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Load mode: runs a page-object journey as many concurrent synthetic users.
+ * Every user is a virtual thread, so hundreds of users waiting on browser round trips cost
+ * no platform threads. Users start spread over the ramp-up and borrow a session per iteration from
+ * a pool capped at the session cap of this agent; users above the cap wait for a free session.
+ * A session is reset between iterations, so each iteration starts as a new visitor.
+ * Page-object steps are timed by {@link ActionMetrics} under the test id "load:&lt;name&gt;",
+ * which the {@link LoadReport} turns into per-step percentiles.
+ */
+public class LoadRunner {
+    private static final Logger logger = LoggerFactory.getLogger(LoadRunner.class);
+
+    private final String name;
+    private final Browser browser;
+    private final Supplier<WebDriver> sessionFactory;
+    private int users = 1;
+    private Duration rampUp = Duration.ZERO;
+    private int iterations = 1;
+    private Duration duration;
+    private int sessionCap = 1;
+    private long borrowTimeoutSeconds = 300;
+
+    /**
+     * Creates a load run.
+     * @param name Name of the journey, used to tag its metrics
+     * @param browser Browser of the sessions
+     * @param sessionFactory Creates a new session, e.g. {@link WebDriverConfig#sessionFactory(Browser)}
+     */
+    public LoadRunner(String name, Browser browser, Supplier<WebDriver> sessionFactory) {
+        this.name = name;
+        this.browser = browser;
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Creates a load run configured by the "load.*" properties of the environment.
+     * @param name Name of the journey
+     * @param browser Browser of the sessions
+     * @param sessionFactory Creates a new session
+     * @return Configured run
+     */
+    public static LoadRunner fromConfig(String name, Browser browser, Supplier<WebDriver> sessionFactory) {
+        LoadRunner runner = new LoadRunner(name, browser, sessionFactory)
+            .withUsers(TestConfig.getIntProperty("load.users", 10))
+            .withRampUp(Duration.ofSeconds(TestConfig.getLongProperty("load.ramp.up.seconds", 10)))
+            .withIterations(TestConfig.getIntProperty("load.iterations", 5))
+            .withSessionCap(TestConfig.getIntProperty("load.session.cap", 4));
+        long seconds = TestConfig.getLongProperty("load.duration.seconds", 0);
+        return seconds > 0 ? runner.withDuration(Duration.ofSeconds(seconds)) : runner;
+    }
+
+    public LoadRunner withUsers(int users) {
+        this.users = users;
+        return this;
+    }
+
+    /**
+     * Spreads the start of the users evenly over a period.
+     * @param rampUp Time until the last user starts
+     * @return This run
+     */
+    public LoadRunner withRampUp(Duration rampUp) {
+        this.rampUp = rampUp;
+        return this;
+    }
+
+    /**
+     * Sets the journeys each user runs. Ignored when a duration is set.
+     * @param iterations Journeys per user
+     * @return This run
+     */
+    public LoadRunner withIterations(int iterations) {
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * Keeps the users running journeys for a period after the ramp-up, instead of a fixed number of iterations.
+     * @param duration Steady state period
+     * @return This run
+     */
+    public LoadRunner withDuration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * Limits the browser sessions this agent runs at the same time.
+     * @param sessionCap Maximum concurrent sessions
+     * @return This run
+     */
+    public LoadRunner withSessionCap(int sessionCap) {
+        this.sessionCap = sessionCap;
+        return this;
+    }
+
+    public LoadRunner withBorrowTimeout(long seconds) {
+        this.borrowTimeoutSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Runs the journey with all users and waits for them to finish.
+     * @param journey Journey of one user, e.g. {@code driver -> new GooglePage(driver).open().searchFor("x")}
+     * @return Report of the run
+     */
+    public LoadReport run(Consumer<WebDriver> journey) {
+        if (users < 1 || iterations < 1 || sessionCap < 1) {
+            throw new IllegalArgumentException("Invalid load settings: users=" + users
+                + ", iterations=" + iterations + ", sessionCap=" + sessionCap);
+        }
+        String testId = "load:" + name;
+        DriverPool pool = new DriverPool(browser, sessionFactory, 0, sessionCap, borrowTimeoutSeconds);
+        LongAdder completed = new LongAdder();
+        Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        long deadline = duration == null ? Long.MAX_VALUE : start + rampUp.toNanos() + duration.toNanos();
+        logger.info("Load run {}: {} user(s) over {} s ramp-up, {}, at most {} {} session(s)", name, users,
+            rampUp.toSeconds(), duration == null ? iterations + " iteration(s) each" : duration.toSeconds() + " s",
+            sessionCap, browser);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < users; user++) {
+                long startOffset = rampUp.toNanos() * user / users;
+                executor.submit(() -> {
+                    ActionMetrics.setCurrentTest(testId);
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(start + startOffset - System.nanoTime());
+                        for (int i = 0; duration != null ? System.nanoTime() < deadline : i < iterations; i++) {
+                            if (runIteration(pool, journey, failures)) {
+                                completed.increment();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (RuntimeException e) {
+                        // No session within the borrow timeout; this user gives up
+                        recordFailure(failures, e);
+                    } finally {
+                        ActionMetrics.setCurrentTest(null);
+                    }
+                    return null;
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<String, Long> failureCounts = new TreeMap<>();
+        failures.forEach((type, count) -> failureCounts.put(type, count.get()));
+        LoadReport report = new LoadReport(name, users, completed.sum(), failureCounts,
+            Duration.ofNanos(System.nanoTime() - start), ActionMetrics.getHistograms(testId));
+        logger.info("{}", report);
+        return report;
+    }
+
+    /**
+     * Runs one journey on a borrowed session. A failed journey leaves the page in an unknown
+     * state, so its session is quit instead of reset.
+     */
+    private boolean runIteration(DriverPool pool, Consumer<WebDriver> journey, Map<String, AtomicLong> failures) {
+        WebDriver driver = ActionMetrics.time("LoadRunner", "borrowSession", browser, ActionMetrics.PHASE_WAIT,
+            pool::borrow);
+        long start = System.nanoTime();
+        try {
+            journey.accept(driver);
+            ActionMetrics.record("LoadRunner", "journey", null, LoadReport.PHASE_JOURNEY, System.nanoTime() - start);
+            pool.release(driver);
+            return true;
+        } catch (RuntimeException | AssertionError e) {
+            recordFailure(failures, e);
+            pool.invalidate(driver);
+            return false;
+        }
+    }
+
+    private void recordFailure(Map<String, AtomicLong> failures, Throwable failure) {
+        AtomicLong count = failures.computeIfAbsent(failure.getClass().getSimpleName(), type -> new AtomicLong());
+        // The first failure of each type is enough to diagnose a run with thousands of them
+        if (count.incrementAndGet() == 1) {
+            logger.warn("Journey {} failed: {}", name, failure.toString());
+        }
+    }
+}
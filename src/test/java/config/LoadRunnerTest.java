@@ -0,0 +1,119 @@
+package config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the load engine against {@link FakeWebDriverServer}, in the default build unlike the load journeys.
+ */
+public class LoadRunnerTest {
+    private static final int USERS = 8;
+    private static final int ITERATIONS = 3;
+    private static final int SESSION_CAP = 3;
+
+    private FakeWebDriverServer server;
+    private Supplier<WebDriver> sessions;
+
+    @BeforeEach
+    void startServer() {
+        server = new FakeWebDriverServer().withElement(By.name("q"), "textarea", "", true).start();
+        sessions = () -> new RemoteWebDriver(server.getUrl(), new ChromeOptions());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    void usersShareAtMostSessionCapSessions() {
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        Map<Thread, Long> firstStarts = new ConcurrentHashMap<>();
+        Duration rampUp = Duration.ofMillis(400);
+
+        LoadReport report = new LoadRunner("capCheck", Browser.CHROME, sessions)
+            .withUsers(USERS)
+            .withRampUp(rampUp)
+            .withIterations(ITERATIONS)
+            .withSessionCap(SESSION_CAP)
+            .run(driver -> {
+                firstStarts.putIfAbsent(Thread.currentThread(), System.nanoTime());
+                maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                maxOpen.accumulateAndGet(server.getActiveSessions(), Math::max);
+                try {
+                    driver.findElement(By.name("q"));
+                    TimeUnit.MILLISECONDS.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inUse.decrementAndGet();
+                }
+            });
+
+        assertEquals(USERS * ITERATIONS, report.getCompleted());
+        assertEquals(0, report.getFailed(), "Failures: " + report.getFailures());
+        assertTrue(maxInUse.get() <= SESSION_CAP, "Journeys in parallel: " + maxInUse.get());
+        assertTrue(maxOpen.get() <= SESSION_CAP, "Open sessions: " + maxOpen.get());
+        assertTrue(server.getSessionsCreated() <= SESSION_CAP, "Sessions created: " + server.getSessionsCreated());
+        assertEquals(USERS * ITERATIONS,
+            report.getSteps().get("LoadRunner.journey (" + LoadReport.PHASE_JOURNEY + ")").getCount());
+
+        // The last user starts about (users - 1) / users of the ramp-up after the first
+        long spread = firstStarts.values().stream().mapToLong(Long::longValue).max().getAsLong()
+            - firstStarts.values().stream().mapToLong(Long::longValue).min().getAsLong();
+        assertEquals(USERS, firstStarts.size());
+        assertTrue(spread >= rampUp.toNanos() * (USERS - 1) / USERS * 3 / 4,
+            "Users started within " + spread / 1_000_000 + " ms");
+    }
+
+    @Test
+    void failedJourneysAreCountedByType() {
+        LoadReport report = new LoadRunner("failureCheck", Browser.CHROME, sessions)
+            .withUsers(2)
+            .withIterations(2)
+            .withSessionCap(1)
+            .run(driver -> {
+                throw new IllegalStateException("journey failed");
+            });
+
+        assertEquals(0, report.getCompleted());
+        assertEquals(4, report.getFailed());
+        assertEquals(Map.of("IllegalStateException", 4L), report.getFailures());
+        assertEquals(0, server.getActiveSessions(), "Sessions of failed journeys are quit");
+    }
+
+    @Test
+    void percentilesUseBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        LoadReport report = new LoadReport("math", 1, 100, Map.of(), Duration.ofSeconds(10), Map.of("step", histogram));
+
+        // 1 ms falls in the bucket up to 1.6 ms; the top bucket is capped at the largest sample
+        assertEquals(1.6, report.getPercentileMillis("step", 50), 0.001);
+        assertEquals(1.6, report.getPercentileMillis("step", 90), 0.001);
+        assertEquals(100, report.getPercentileMillis("step", 95), 0.001);
+        assertEquals(-1, report.getPercentileMillis("missing", 50));
+        assertEquals(10, report.getThroughput(), 0.001);
+    }
+}
@@ -0,0 +1,318 @@
+package config;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Network rules for Chromium based sessions (Chrome, Edge) through the DevTools protocol.
+ * Blocks URL patterns from "network.blocklist" and {@link NetworkPolicy} page objects,
+ * keeps the HTTP cache enabled, and optionally counts requests per test.
+ * Local sessions get a disk cache directory under "network.cache.dir" that outlives the session,
+ * so a replacement session in the {@link DriverPool} and the next run start with a warm cache.
+ * Each directory is locked for the life of the JVM that uses it, so JVMs running side by side
+ * on one machine never share one.
+ * Other browsers and sessions without DevTools access are left untouched.
+ */
+public class NetworkControl {
+    private static final Logger logger = LoggerFactory.getLogger(NetworkControl.class);
+    public static final String REQUESTS = "network.requests";
+    public static final String BLOCKED = "network.blocked";
+    public static final String FROM_CACHE = "network.fromCache";
+
+    private static final Map<WebDriver, SessionState> sessions = new ConcurrentHashMap<>();
+    private static final Map<Browser, Deque<Path>> freeCacheDirs = new EnumMap<>(Browser.class);
+    private static final AtomicInteger cacheDirSequence = new AtomicInteger();
+    // Held until the JVM exits, which releases them
+    private static final List<FileLock> cacheDirLocks = new ArrayList<>();
+
+    private NetworkControl() {
+    }
+
+    /**
+     * Applies the rules of a page object to its session. Re-applying unchanged rules costs nothing.
+     * @param driver Session the page object drives
+     * @param policy Rules declared on the page object
+     */
+    public static void apply(WebDriver driver, NetworkPolicy policy) {
+        if (!TestConfig.getBooleanProperty("network.control.enabled", true)) {
+            return;
+        }
+        Set<String> patterns = new LinkedHashSet<>();
+        if (policy.environmentBlocklist()) {
+            patterns.addAll(getEnvironmentBlocklist());
+        }
+        patterns.addAll(Arrays.asList(policy.block()));
+        SessionState state = getState(driver);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            try {
+                if (policy.countRequests()) {
+                    state.startCounting();
+                }
+                List<String> blocked = new ArrayList<>(patterns);
+                if (!blocked.equals(state.blocked)) {
+                    state.send("Network.setBlockedURLs", Map.of("urls", blocked));
+                    state.blocked = blocked;
+                    logger.debug("Blocking {} URL pattern(s)", blocked.size());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Failed to apply network policy: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Removes the blocked URL patterns of a session and stops counting its requests, keeping its HTTP cache.
+     * Called when a pooled session is reset for the next test, which counts only if its page objects ask to.
+     * @param driver Session to reset
+     */
+    public static void reset(WebDriver driver) {
+        SessionState state = sessions.get(driver);
+        if (state == null) {
+            return;
+        }
+        state.stopCounting();
+        if (state.blocked.isEmpty()) {
+            return;
+        }
+        synchronized (state) {
+            try {
+                state.send("Network.setBlockedURLs", Map.of("urls", Collections.emptyList()));
+                state.blocked = Collections.emptyList();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to clear blocked URLs: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds the requests counted since the last call to the {@link ActionMetrics} counters of the running test.
+     * @param driver Session of the test
+     * @return Counted requests, blocked requests and cache hits; empty when requests are not counted
+     */
+    public static Map<String, Long> collect(WebDriver driver) {
+        SessionState state = driver == null ? null : sessions.get(driver);
+        if (state == null || !state.counting) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put(REQUESTS, state.requests.sumThenReset());
+        counts.put(BLOCKED, state.blockedRequests.sumThenReset());
+        counts.put(FROM_CACHE, state.fromCache.sumThenReset());
+        counts.forEach((name, value) -> ActionMetrics.count("NetworkControl", name, value));
+        return counts;
+    }
+
+    /**
+     * Hands out a disk cache directory for a new local session, reusing the directory of a quit session.
+     * @param browser Browser of the new session
+     * @return Directory, or empty when caching is disabled or the browser is not Chromium based
+     */
+    static Optional<Path> leaseCacheDir(Browser browser) {
+        if (browser == Browser.FIREFOX || !TestConfig.getBooleanProperty("network.cache.enabled", true)) {
+            return Optional.empty();
+        }
+        Path dir;
+        synchronized (freeCacheDirs) {
+            dir = freeCacheDirs.computeIfAbsent(browser, b -> new ArrayDeque<>()).pollFirst();
+        }
+        String base = TestConfig.getProperty("network.cache.dir", "");
+        Path root = base.isBlank()
+            ? DriverBinaryCache.getCacheDir().resolve("http-cache")
+            : Paths.get(base);
+        try {
+            if (dir == null) {
+                dir = lockCacheDir(root, browser);
+            }
+            Files.createDirectories(dir);
+            return Optional.of(dir);
+        } catch (IOException e) {
+            logger.warn("Cannot create HTTP cache directory in {}: {}", root, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Picks the next directory name no other JVM holds, locking it through a sibling ".lock" file.
+     * One directory per concurrent session, as Chromium does not share a disk cache between processes.
+     * The names repeat between runs, so the next run starts warm as well.
+     */
+    private static Path lockCacheDir(Path root, Browser browser) throws IOException {
+        Files.createDirectories(root);
+        while (true) {
+            String name = browser.getValue() + "-" + cacheDirSequence.incrementAndGet();
+            FileChannel channel = FileChannel.open(root.resolve(name + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                synchronized (cacheDirLocks) {
+                    cacheDirLocks.add(lock);
+                }
+                return root.resolve(name);
+            }
+            // Another JVM uses this directory
+            channel.close();
+        }
+    }
+
+    /**
+     * Links a leased cache directory to the session created with it.
+     * @param driver New session
+     * @param browser Browser of the session
+     * @param cacheDir Directory from {@link #leaseCacheDir(Browser)}
+     */
+    static void attach(WebDriver driver, Browser browser, Path cacheDir) {
+        SessionState state = sessions.computeIfAbsent(driver, d -> new SessionState());
+        state.cacheBrowser = browser;
+        state.cacheDir = cacheDir;
+    }
+
+    /**
+     * Returns a cache directory that did not end up in a session.
+     * @param browser Browser the directory was leased for
+     * @param cacheDir Directory from {@link #leaseCacheDir(Browser)}
+     */
+    static void returnCacheDir(Browser browser, Path cacheDir) {
+        synchronized (freeCacheDirs) {
+            freeCacheDirs.computeIfAbsent(browser, b -> new ArrayDeque<>()).offerFirst(cacheDir);
+        }
+    }
+
+    /**
+     * Drops the state of a session that is being quit and frees its cache directory for the next session.
+     * @param driver Session being quit
+     */
+    static void forget(WebDriver driver) {
+        SessionState state = sessions.remove(driver);
+        if (state == null) {
+            return;
+        }
+        if (state.cacheDir != null) {
+            returnCacheDir(state.cacheBrowser, state.cacheDir);
+        }
+    }
+
+    private static List<String> getEnvironmentBlocklist() {
+        List<String> patterns = new ArrayList<>();
+        for (String pattern : TestConfig.getProperty("network.blocklist", "").split(",")) {
+            if (!pattern.isBlank()) {
+                patterns.add(pattern.trim());
+            }
+        }
+        return patterns;
+    }
+
+    private static SessionState getState(WebDriver driver) {
+        SessionState state = sessions.computeIfAbsent(driver, d -> new SessionState());
+        synchronized (state) {
+            if (state.supported == null) {
+                state.supported = connect(driver, state);
+            }
+            return state.supported ? state : null;
+        }
+    }
+
+    private static boolean connect(WebDriver driver, SessionState state) {
+        Optional<DevTools> devTools = DevToolsSessions.get(driver);
+        if (devTools.isEmpty()) {
+            return false;
+        }
+        try {
+            state.devTools = devTools.get();
+            state.send("Network.enable", Collections.emptyMap());
+            state.send("Network.setCacheDisabled", Map.of("cacheDisabled", false));
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Network control unavailable: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static final class SessionState {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder blockedRequests = new LongAdder();
+        private final LongAdder fromCache = new LongAdder();
+        private volatile boolean counting;
+        private boolean listening;
+        private Boolean supported;
+        private DevTools devTools;
+        private List<String> blocked = Collections.emptyList();
+        private Browser cacheBrowser;
+        private Path cacheDir;
+
+        private void send(String method, Map<String, Object> params) {
+            devTools.send(new Command<>(method, params));
+        }
+
+        /**
+         * Counts from now on. The listeners stay registered for the life of the session and
+         * only count while a test's policy asked for it.
+         */
+        private void startCounting() {
+            if (counting) {
+                return;
+            }
+            if (!listening) {
+                devTools.addListener(new Event<>("Network.requestWillBeSent", input -> {
+                    input.skipValue();
+                    return Boolean.TRUE;
+                }), ignored -> count(requests));
+                devTools.addListener(new Event<>("Network.requestServedFromCache", input -> {
+                    input.skipValue();
+                    return Boolean.TRUE;
+                }), ignored -> count(fromCache));
+                devTools.addListener(new Event<Map<String, Object>>("Network.loadingFailed",
+                    input -> input.read(Json.MAP_TYPE)), event -> {
+                        if (Objects.toString(event.get("blockedReason"), "").length() > 0) {
+                            count(blockedRequests);
+                        }
+                    });
+                listening = true;
+            }
+            counting = true;
+        }
+
+        private void stopCounting() {
+            counting = false;
+            requests.reset();
+            blockedRequests.reset();
+            fromCache.reset();
+        }
+
+        private void count(LongAdder counter) {
+            if (counting) {
+                counter.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the network rules a page object needs, applied by {@link BasePage} through {@link NetworkControl}.
+ * Only Chromium based browsers (Chrome, Edge) honour the rules; other browsers load everything.
+ * <pre>
+ * &#64;NetworkPolicy(block = {"*doubleclick.net*", "*.woff2"}, countRequests = true)
+ * public class SearchPage extends BasePage { ... }
+ * </pre>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface NetworkPolicy {
+    /**
+     * URL patterns to block in addition to the environment blocklist; "*" matches any characters.
+     * @return Blocked URL patterns
+     */
+    String[] block() default {};
+
+    /**
+     * Whether the patterns of "network.blocklist" apply as well.
+     * @return true to include the environment blocklist
+     */
+    boolean environmentBlocklist() default true;
+
+    /**
+     * Whether requests, blocked requests and cache hits are counted for the running test.
+     * @return true to count requests
+     */
+    boolean countRequests() default false;
+}
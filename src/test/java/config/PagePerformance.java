@@ -0,0 +1,157 @@
+package config;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the browser's own performance entries through JavaScript: Navigation Timing, Resource Timing,
+ * paint timing, Largest Contentful Paint and Cumulative Layout Shift. {@link BasePage} captures them after
+ * every navigation when "perf.capture.enabled" is set, and page objects after their key interactions.
+ * Every sample is appended as one JSON line to "perf.trend.dir"/performance-&lt;env&gt;.jsonl, tagged with
+ * "build.id", so builds can be compared over time.
+ */
+public class PagePerformance {
+    private static final Logger logger = LoggerFactory.getLogger(PagePerformance.class);
+    // LCP and layout shifts are only observable; buffered observers deliver the entries recorded so far
+    private static final String CAPTURE_SCRIPT =
+        "var since = arguments[0], done = arguments[arguments.length - 1];"
+        // A mark from before a navigation lies in the future of the new page's clock
+        + "if (since > performance.now()) since = 0;"
+        // Navigations pass the time their readiness was met; interactions count until the capture
+        + "var result = {ready: arguments[1] !== null ? arguments[1] : performance.now()};"
+        + "var nav = performance.getEntriesByType('navigation')[0];"
+        + "if (nav) {"
+        + "  result.ttfb = nav.responseStart;"
+        + "  if (nav.domContentLoadedEventEnd > 0) result.domContentLoaded = nav.domContentLoadedEventEnd;"
+        + "  if (nav.loadEventEnd > 0) result.load = nav.loadEventEnd;"
+        + "}"
+        + "var bytes = 0, count = 0;"
+        + "performance.getEntriesByType('resource').forEach(function(r) {"
+        + "  if (r.startTime >= since) { count++; bytes += r.transferSize || 0; }"
+        + "});"
+        + "result.resources = count; result.transferKb = bytes / 1024;"
+        + "performance.getEntriesByType('paint').forEach(function(p) {"
+        + "  if (p.name === 'first-contentful-paint') result.fcp = p.startTime;"
+        + "});"
+        + "var observers = [], cls = 0, lcp = null;"
+        + "function observe(type, callback) {"
+        + "  try {"
+        + "    var o = new PerformanceObserver(function(list) { list.getEntries().forEach(callback); });"
+        + "    o.observe({type: type, buffered: true}); observers.push(o);"
+        + "  } catch (e) {}"
+        + "}"
+        + "observe('largest-contentful-paint', function(e) { lcp = e.startTime; });"
+        + "observe('layout-shift', function(e) { if (!e.hadRecentInput) cls += e.value; });"
+        + "setTimeout(function() {"
+        + "  observers.forEach(function(o) { o.disconnect(); });"
+        + "  if (lcp !== null) result.lcp = lcp;"
+        + "  if (observers.length > 1) result.cls = cls;"
+        + "  done(result);"
+        + "}, 50);";
+    private static final String RUN_STARTED = Instant.now().toString();
+    private static final Json json = new Json();
+
+    private PagePerformance() {
+    }
+
+    public static boolean isEnabled() {
+        return TestConfig.getBooleanProperty("perf.capture.enabled", false);
+    }
+
+    /**
+     * Reads the page's clock, e.g. the moment a page object's readiness was met.
+     * @param driver Session on the page
+     * @return Milliseconds since the navigation started, or null when the browser cannot report it
+     */
+    public static Double now(WebDriver driver) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        try {
+            Object now = ((JavascriptExecutor) driver).executeScript("return performance.now();");
+            return now instanceof Number ? ((Number) now).doubleValue() : null;
+        } catch (WebDriverException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Captures the metrics of the current page and appends them to the trend file.
+     * @param driver Session on the page
+     * @param page Page object name
+     * @param step Step that just finished, e.g. "navigateTo"
+     * @param sinceMillis Only resources requested after this page time are counted; 0 for a navigation
+     * @param readyMillis Page time the page became ready, see {@link #now(WebDriver)}; null for the capture time
+     * @return Sample, or null when the browser cannot report performance entries
+     */
+    public static PerformanceSample capture(WebDriver driver, String page, String step, double sinceMillis,
+                                            Double readyMillis) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        Map<?, ?> raw;
+        try {
+            raw = (Map<?, ?>) ((JavascriptExecutor) driver).executeAsyncScript(CAPTURE_SCRIPT, sinceMillis, readyMillis);
+        } catch (WebDriverException | ClassCastException e) {
+            logger.debug("Performance entries unavailable on {}: {}", page, e.getMessage());
+            return null;
+        }
+        if (raw == null) {
+            return null;
+        }
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        raw.forEach((name, value) -> {
+            if (value instanceof Number) {
+                metrics.put(String.valueOf(name), ((Number) value).doubleValue());
+            }
+        });
+        PerformanceSample sample = new PerformanceSample(page, step, driver.getCurrentUrl(), metrics);
+        logger.debug("Performance of {}", sample);
+        append(sample);
+        return sample;
+    }
+
+    private static synchronized void append(PerformanceSample sample) {
+        Browser browser = WebDriverConfig.getBrowser();
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("build", TestConfig.getProperty("build.id", RUN_STARTED));
+        line.put("timestamp", Instant.now().toString());
+        line.put("environment", TestConfig.getEnvironment());
+        line.put("browser", browser == null ? null : browser.getValue());
+        line.put("profile", BrowserProfile.active().getName());
+        line.put("test", MDC.get("testId"));
+        line.put("page", sample.getPage());
+        line.put("step", sample.getStep());
+        line.put("url", sample.getUrl());
+        line.put("metrics", sample.getMetrics());
+        Path file = getTrendFile();
+        try {
+            Files.createDirectories(file.getParent());
+            StringBuilder text = new StringBuilder();
+            json.newOutput(text).setPrettyPrint(false).write(line);
+            Files.writeString(file, text.append(System.lineSeparator()), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("Failed to write performance trend {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static Path getTrendFile() {
+        return Paths.get(TestConfig.getProperty("perf.trend.dir", "test-output/history"))
+            .resolve("performance-" + TestConfig.getEnvironment() + ".jsonl");
+    }
+}
@@ -0,0 +1,183 @@
+package config;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * What must hold before a page object counts as loaded. Sessions navigate with the "eager" or
+ * "none" page-load strategy ("page.load.strategy"), so {@code driver.get} returns before images,
+ * ads and trackers finish; the page object then waits only for what its steps need.
+ * Page objects declare it by overriding {@link BasePage#readiness()}, e.g.
+ * {@code PageReadiness.domContentLoaded().present(searchBox).script("window.appReady === true")}.
+ */
+public final class PageReadiness {
+    private static final String DOCUMENT_PARSED = "document.readyState !== 'loading'";
+    // A new document has a new time origin; a same-document navigation changes the URL
+    private static final String DOCUMENT_IDENTITY = "return performance.timeOrigin + ' ' + location.href;";
+    // Resource timing entries only exist for finished requests, and the buffer stops at 250 entries.
+    // The first poll therefore counts fetch and XHR requests in flight and observes finished requests
+    // with a PerformanceObserver, which is not bound by the buffer; requests started before it are
+    // seen once they finish. Entries finish out of order, so the latest end is the maximum, not the last.
+    private static final String MILLIS_SINCE_LAST_RESOURCE =
+        "var net = window.__pageReadinessNetwork;"
+        + "if (!net) {"
+        + "  net = window.__pageReadinessNetwork = {inFlight: 0, lastEnd: 0};"
+        + "  var end = function(time) { net.lastEnd = Math.max(net.lastEnd, time); };"
+        + "  try {"
+        + "    new PerformanceObserver(function(list) {"
+        + "      list.getEntries().forEach(function(e) { end(e.responseEnd); });"
+        + "    }).observe({type: 'resource', buffered: true});"
+        + "  } catch (e) {}"
+        + "  var finished = function() { net.inFlight--; end(performance.now()); };"
+        + "  if (window.fetch) {"
+        + "    var fetch = window.fetch;"
+        + "    window.fetch = function() {"
+        + "      net.inFlight++;"
+        + "      var request = fetch.apply(this, arguments);"
+        + "      request.then(finished, finished);"
+        + "      return request;"
+        + "    };"
+        + "  }"
+        + "  var send = XMLHttpRequest.prototype.send;"
+        + "  XMLHttpRequest.prototype.send = function() {"
+        + "    net.inFlight++;"
+        + "    this.addEventListener('loadend', finished);"
+        + "    return send.apply(this, arguments);"
+        + "  };"
+        + "}"
+        // The observer reports asynchronously, so the buffer covers what finished before this poll
+        + "performance.getEntriesByType('resource').forEach(function(e) {"
+        + "  net.lastEnd = Math.max(net.lastEnd, e.responseEnd);"
+        + "});"
+        + "return net.inFlight > 0 ? 0 : performance.now() - net.lastEnd;";
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final List<By> locators;
+    private final List<String> scripts;
+    private final Duration networkIdle;
+
+    private PageReadiness(List<By> locators, List<String> scripts, Duration networkIdle) {
+        this.locators = locators;
+        this.scripts = scripts;
+        this.networkIdle = networkIdle;
+    }
+
+    /**
+     * Ready once the HTML is parsed, the moment the "eager" strategy returns.
+     * The default of every page object.
+     * @return Readiness
+     */
+    public static PageReadiness domContentLoaded() {
+        return new PageReadiness(List.of(), List.of(DOCUMENT_PARSED), null);
+    }
+
+    /**
+     * Also requires the key elements of the page to be present.
+     * @param keyLocators Locators of elements the page's steps need
+     * @return New readiness
+     */
+    public PageReadiness present(By... keyLocators) {
+        List<By> all = new ArrayList<>(locators);
+        all.addAll(Arrays.asList(keyLocators));
+        return new PageReadiness(List.copyOf(all), scripts, networkIdle);
+    }
+
+    /**
+     * Also requires a JavaScript expression to be truthy, e.g. a flag the application sets after startup.
+     * @param expression Expression evaluated in the page
+     * @return New readiness
+     */
+    public PageReadiness script(String expression) {
+        List<String> all = new ArrayList<>(scripts);
+        all.add(expression);
+        return new PageReadiness(locators, List.copyOf(all), networkIdle);
+    }
+
+    /**
+     * Also requires the network to be quiet: no fetch or XHR request in flight and no request
+     * finished within the given period.
+     * @param quietPeriod How long no request may finish
+     * @return New readiness
+     */
+    public PageReadiness networkIdle(Duration quietPeriod) {
+        return new PageReadiness(locators, scripts, quietPeriod);
+    }
+
+    /**
+     * Identifies the current document, read before a navigation so that {@link #await} does not
+     * evaluate the conditions on it. Only the "none" strategy needs this: its navigation commands
+     * return before the next document replaced the current one.
+     * @param driver Session about to navigate
+     * @return Identity of the current document, or null when the navigation itself waits for the next one
+     */
+    static String currentDocument(WebDriver driver) {
+        if (!"none".equalsIgnoreCase(TestConfig.getProperty("page.load.strategy", "eager"))) {
+            return null;
+        }
+        try {
+            return (String) ((JavascriptExecutor) driver).executeScript(DOCUMENT_IDENTITY);
+        } catch (WebDriverException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Waits until every condition holds.
+     * @param driver Session on the page
+     * @param waits Element waits of the page object
+     * @param timeout Bound of the whole wait ("timeout.pageload")
+     * @param previousDocument Identity of the document before the navigation, see {@link #currentDocument};
+     *                         the conditions are evaluated only once it was replaced. Null to evaluate at once
+     */
+    void await(WebDriver driver, ScriptWait waits, Duration timeout, String previousDocument) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        if (previousDocument != null) {
+            poll(driver, deadline, "the navigation to replace the document",
+                () -> !previousDocument.equals(js.executeScript(DOCUMENT_IDENTITY)));
+        }
+        for (String expression : scripts) {
+            poll(driver, deadline, "page script " + expression,
+                () -> Boolean.TRUE.equals(js.executeScript("return !!(" + expression + ");")));
+        }
+        for (By locator : locators) {
+            waits.untilPresent(locator, remaining(deadline, "element located by " + locator));
+        }
+        if (networkIdle != null) {
+            poll(driver, deadline, "network idle for " + networkIdle.toMillis() + " ms", () -> {
+                Object idle = js.executeScript(MILLIS_SINCE_LAST_RESOURCE);
+                return idle instanceof Number && ((Number) idle).longValue() >= networkIdle.toMillis();
+            });
+        }
+    }
+
+    private static void poll(WebDriver driver, long deadline, String description, BooleanSupplier condition) {
+        new WebDriverWait(driver, remaining(deadline, description), POLL_INTERVAL)
+            .withMessage("waiting for " + description)
+            .until(d -> {
+                try {
+                    return condition.getAsBoolean() ? Boolean.TRUE : null;
+                } catch (WebDriverException e) {
+                    // The page is still being replaced by the navigation
+                    return null;
+                }
+            });
+    }
+
+    private static Duration remaining(long deadline, String description) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new TimeoutException("Page was not ready in time, waiting for " + description);
+        }
+        return Duration.ofNanos(remaining);
+    }
+}
@@ -0,0 +1,63 @@
+package config;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Browser performance metrics of one page step, read by {@link PagePerformance}.
+ * Times are milliseconds since the navigation started; "cls" is the cumulative layout shift score.
+ */
+public class PerformanceSample {
+    public static final String TTFB = "ttfb";
+    public static final String FIRST_CONTENTFUL_PAINT = "fcp";
+    public static final String LARGEST_CONTENTFUL_PAINT = "lcp";
+    public static final String CUMULATIVE_LAYOUT_SHIFT = "cls";
+    public static final String DOM_CONTENT_LOADED = "domContentLoaded";
+    public static final String LOAD = "load";
+    /** When the page object's readiness was met, the load a test waits for with the eager strategy. */
+    public static final String READY = "ready";
+    public static final String RESOURCES = "resources";
+    public static final String TRANSFER_KB = "transferKb";
+
+    private final String page;
+    private final String step;
+    private final String url;
+    private final Map<String, Double> metrics;
+
+    PerformanceSample(String page, String step, String url, Map<String, Double> metrics) {
+        this.page = page;
+        this.step = step;
+        this.url = url;
+        this.metrics = Collections.unmodifiableMap(metrics);
+    }
+
+    public String getPage() {
+        return page;
+    }
+
+    public String getStep() {
+        return step;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets a metric by name, e.g. {@link #LARGEST_CONTENTFUL_PAINT}.
+     * @param name Metric name
+     * @return Value, or null when the browser does not report it (e.g. LCP before it is final, or in Safari)
+     */
+    public Double getMetric(String name) {
+        return metrics.get(name);
+    }
+
+    public Map<String, Double> getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return page + "." + step + " " + metrics;
+    }
+}
@@ -0,0 +1,229 @@
+package config;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Captures screenshots as bytes on the test thread and writes them in the background.
+ * The write queue is bounded; when it is full the test thread writes the file itself.
+ * Retention (age and total size limits) also runs in the background.
+ */
+public class ScreenshotService {
+    private static final Logger logger = LoggerFactory.getLogger(ScreenshotService.class);
+    private static final Path SCREENSHOT_DIR =
+        Paths.get(TestConfig.getProperty("screenshot.dir", "test-output/screenshots"));
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final long PID = ProcessHandle.current().pid();
+
+    private static final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(TestConfig.getIntProperty("screenshot.queue.size", 32)),
+        daemonThread("screenshot-writer"),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+    private static final ScheduledExecutorService retention =
+        Executors.newSingleThreadScheduledExecutor(daemonThread("screenshot-retention"));
+
+    private static final AtomicBoolean retentionStarted = new AtomicBoolean();
+
+    static {
+        startRetention();
+        Runtime.getRuntime().addShutdownHook(new Thread(ScreenshotService::flush));
+    }
+
+    private ScreenshotService() {
+    }
+
+    /**
+     * Starts the periodic retention, once per JVM. {@link TestResultLogger} calls it before every
+     * test class, so files of earlier runs are cleaned up even in runs that take no screenshot.
+     */
+    static void startRetention() {
+        if (retentionStarted.compareAndSet(false, true)) {
+            retention.scheduleWithFixedDelay(ScreenshotService::applyRetention,
+                0, TestConfig.getLongProperty("screenshot.retention.interval.minutes", 10), TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Takes a screenshot and queues it for writing.
+     * @param driver Driver to capture
+     * @param name Name prefix, usually the test method name
+     * @param browser Browser of the driver, part of the file name
+     * @return Path the screenshot will be written to
+     */
+    public static Path capture(WebDriver driver, String name, Browser browser) {
+        byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+        return save(png, name, browser);
+    }
+
+    /**
+     * Queues already captured PNG bytes for writing.
+     * @param png PNG image bytes
+     * @param name Name prefix, usually the test method name
+     * @param browser Browser the image came from, part of the file name
+     * @return Path the screenshot will be written to
+     */
+    public static Path save(byte[] png, String name, Browser browser) {
+        Path destination = destination(name, browser, "png");
+        writer.execute(() -> write(destination, png));
+        return destination;
+    }
+
+    /**
+     * Queues a recording for encoding and writing; the encoder runs on the writer thread.
+     * @param name Name prefix, usually the test method name
+     * @param browser Browser the recording came from, part of the file name
+     * @param extension File extension of the encoded recording
+     * @param encoder Produces the file content
+     * @return Path the recording will be written to
+     */
+    static Path saveRecording(String name, Browser browser, String extension, Supplier<byte[]> encoder) {
+        Path destination = destination(name, browser, extension);
+        writer.execute(() -> {
+            try {
+                write(destination, encoder.get());
+            } catch (RuntimeException e) {
+                logger.error("Failed to encode recording {}: {}", destination, e.getMessage());
+            }
+        });
+        return destination;
+    }
+
+    private static Path destination(String name, Browser browser, String extension) {
+        // Millisecond timestamp plus process id and sequence keep names unique across parallel runs
+        String filename = String.format("%s_%s_%s_%d-%d.%s",
+            name,
+            browser.name().toLowerCase(),
+            LocalDateTime.now().format(TIMESTAMP),
+            PID,
+            sequence.incrementAndGet(),
+            extension);
+        return SCREENSHOT_DIR.resolve(filename);
+    }
+
+    /**
+     * Waits for queued screenshots to be written. Called from a shutdown hook.
+     */
+    public static void flush() {
+        writer.shutdown();
+        retention.shutdownNow();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Screenshot writer did not finish within 30 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void write(Path destination, byte[] content) {
+        try {
+            Files.createDirectories(destination.getParent());
+            Files.write(destination, content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            logger.info("Screenshot successfully saved to: {}", destination.toAbsolutePath());
+        } catch (IOException e) {
+            logger.error("Failed to write screenshot {}: {}", destination, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes screenshots and recordings older than "screenshot.retention.hours", then the oldest ones
+     * until the directory is below "screenshot.retention.max.mb".
+     */
+    static void applyRetention() {
+        if (!Files.isDirectory(SCREENSHOT_DIR)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(TestConfig.getLongProperty("screenshot.retention.hours", 24), ChronoUnit.HOURS);
+        long maxBytes = TestConfig.getLongProperty("screenshot.retention.max.mb", 500) * 1024 * 1024;
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(SCREENSHOT_DIR, "*.{png,mjpeg}")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            logger.error("Failed to list screenshots", e);
+            return;
+        }
+
+        List<Path> kept = new ArrayList<>();
+        long totalBytes = 0;
+        for (Path file : files) {
+            try {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    delete(file);
+                } else {
+                    kept.add(file);
+                    totalBytes += Files.size(file);
+                }
+            } catch (NoSuchFileException e) {
+                // Removed by another run sharing the directory
+            } catch (IOException e) {
+                logger.error("Failed to process screenshot file: {}", file.getFileName(), e);
+            }
+        }
+
+        if (totalBytes > maxBytes) {
+            kept.sort(Comparator.comparing(ScreenshotService::lastModified));
+            for (Path file : kept) {
+                if (totalBytes <= maxBytes) {
+                    break;
+                }
+                try {
+                    long size = Files.size(file);
+                    delete(file);
+                    totalBytes -= size;
+                } catch (IOException e) {
+                    logger.error("Failed to process screenshot file: {}", file.getFileName(), e);
+                }
+            }
+        }
+    }
+
+    private static void delete(Path file) throws IOException {
+        if (Files.deleteIfExists(file)) {
+            logger.info("Deleted old screenshot: {}", file.getFileName());
+        }
+    }
+
+    private static Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            return Instant.EPOCH;
+        }
+    }
+
+    private static ThreadFactory daemonThread(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package config;
+
+import org.openqa.selenium.By;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates {@link By} locators into arguments for in-page scripts.
+ * Only locator strategies the page can evaluate itself are supported;
+ * everything else has to go through the regular WebDriver lookup.
+ */
+final class ScriptLocator {
+    private static final Set<String> SUPPORTED_STRATEGIES =
+        Set.of("id", "name", "class name", "tag name", "css selector", "xpath");
+
+    /**
+     * JavaScript function that resolves one translated locator to the first matching element.
+     * Expects the argument produced by {@link #toScriptArgument(By)}.
+     */
+    static final String FIND_FUNCTION =
+        "function findBy(l) {"
+        + "  switch (l.using) {"
+        + "    case 'id': return document.getElementById(l.value);"
+        + "    case 'name': return document.querySelector('[name=\"' + CSS.escape(l.value) + '\"]');"
+        + "    case 'class name': return document.getElementsByClassName(l.value)[0] || null;"
+        + "    case 'tag name': return document.getElementsByTagName(l.value)[0] || null;"
+        + "    case 'css selector': return document.querySelector(l.value);"
+        + "    case 'xpath': return document.evaluate(l.value, document, null,"
+        + "        XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;"
+        + "  }"
+        + "  return null;"
+        + "}"
+        + "function isShown(e) {"
+        + "  if (!e || !e.isConnected) return false;"
+        + "  var s = window.getComputedStyle(e);"
+        + "  return s.visibility !== 'hidden' && s.display !== 'none'"
+        + "      && !!(e.offsetWidth || e.offsetHeight || e.getClientRects().length);"
+        + "}";
+
+    private ScriptLocator() {
+    }
+
+    /**
+     * Checks whether a locator can be resolved by {@link #FIND_FUNCTION}.
+     * @param by Locator to check
+     * @return true if the locator can run as a script
+     */
+    static boolean isSupported(By by) {
+        if (!(by instanceof By.Remotable)) {
+            return false;
+        }
+        By.Remotable.Parameters parameters = ((By.Remotable) by).getRemoteParameters();
+        return SUPPORTED_STRATEGIES.contains(parameters.using()) && parameters.value() instanceof String;
+    }
+
+    /**
+     * Converts a supported locator into a script argument.
+     * @param by Locator accepted by {@link #isSupported(By)}
+     * @return Map with "using" and "value" entries
+     */
+    static Map<String, Object> toScriptArgument(By by) {
+        By.Remotable.Parameters parameters = ((By.Remotable) by).getRemoteParameters();
+        Map<String, Object> argument = new HashMap<>();
+        argument.put("using", parameters.using());
+        argument.put("value", parameters.value());
+        return argument;
+    }
+}
@@ -0,0 +1,161 @@
+package config;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.UnhandledAlertException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Event-driven element waits.
+ * A MutationObserver installed through executeAsyncScript re-checks the condition inside the
+ * page whenever the DOM changes and answers as soon as it holds, instead of polling over the wire.
+ * Falls back to {@link WebDriverWait} polling when the locator cannot run as a script or the
+ * driver cannot run async scripts.
+ */
+public class ScriptWait {
+    private static final Logger logger = LoggerFactory.getLogger(ScriptWait.class);
+    private static final long MAX_SCRIPT_MILLIS = 25_000;
+    private static final String WAIT_SCRIPT = ScriptLocator.FIND_FUNCTION
+        + "var locator = arguments[0], condition = arguments[1], timeout = arguments[2];"
+        + "var done = arguments[arguments.length - 1];"
+        + "function check() {"
+        + "  var e = findBy(locator);"
+        + "  switch (condition) {"
+        + "    case 'present': return e ? {element: e} : null;"
+        + "    case 'visible': return isShown(e) ? {element: e} : null;"
+        + "    case 'clickable': return isShown(e) && !e.disabled ? {element: e} : null;"
+        + "    case 'invisible': return isShown(e) ? null : {element: null};"
+        + "  }"
+        + "  throw new Error('Unknown condition ' + condition);"
+        + "}"
+        + "var first = check();"
+        + "if (first) { done({met: true, element: first.element}); return; }"
+        + "var finished = false, observer, poll, timer, scheduled = false;"
+        + "function finish(result) {"
+        + "  if (finished) return;"
+        + "  finished = true;"
+        + "  observer.disconnect(); clearInterval(poll); clearTimeout(timer);"
+        + "  done(result);"
+        + "}"
+        + "function recheck() {"
+        + "  scheduled = false;"
+        + "  var r = check();"
+        + "  if (r) finish({met: true, element: r.element});"
+        + "}"
+        + "observer = new MutationObserver(function() {"
+        + "  if (!scheduled) { scheduled = true; Promise.resolve().then(recheck); }"
+        + "});"
+        + "observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});"
+        // Layout-only changes (CSS transitions, media queries) do not mutate the DOM
+        + "poll = setInterval(recheck, 100);"
+        + "timer = setTimeout(function() { finish({met: false}); }, timeout);";
+
+    private static final String ACTIVITY_SCRIPT =
+        "var done = arguments[arguments.length - 1], changes = 0;"
+        + "var observer = new MutationObserver(function(records) { changes += records.length; });"
+        + "observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});"
+        + "setTimeout(function() {"
+        + "  observer.disconnect();"
+        + "  done(changes > 0 || document.readyState !== 'complete');"
+        + "}, arguments[0]);";
+
+    private final WebDriver driver;
+    private final boolean enabled;
+
+    /**
+     * Creates a wait engine for one driver.
+     * @param driver Driver to wait on
+     */
+    public ScriptWait(WebDriver driver) {
+        this.driver = driver;
+        this.enabled = driver instanceof JavascriptExecutor
+            && TestConfig.getBooleanProperty("wait.script.enabled", true);
+    }
+
+    public WebElement untilPresent(By by, Duration timeout) {
+        return until(by, "present", ExpectedConditions.presenceOfElementLocated(by), timeout);
+    }
+
+    public WebElement untilVisible(By by, Duration timeout) {
+        return until(by, "visible", ExpectedConditions.visibilityOfElementLocated(by), timeout);
+    }
+
+    public WebElement untilClickable(By by, Duration timeout) {
+        return until(by, "clickable", ExpectedConditions.elementToBeClickable(by), timeout);
+    }
+
+    public void untilInvisible(By by, Duration timeout) {
+        until(by, "invisible", driver -> ExpectedConditions.invisibilityOfElementLocated(by).apply(driver)
+            ? Boolean.TRUE : null, timeout);
+    }
+
+    /**
+     * Checks whether the page is still changing: DOM mutations within the sample window,
+     * or a document that has not finished loading. A quiet page will not satisfy a wait later.
+     * @param sample How long to watch for mutations
+     * @return true if the page is busy, or if this cannot be determined
+     */
+    public boolean isPageBusy(Duration sample) {
+        if (!enabled) {
+            return true;
+        }
+        try {
+            return !Boolean.FALSE.equals(((JavascriptExecutor) driver).executeAsyncScript(ACTIVITY_SCRIPT,
+                sample.toMillis()));
+        } catch (WebDriverException e) {
+            return true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T until(By by, String condition, ExpectedCondition<T> pollingCondition, Duration timeout) {
+        if (!enabled || !ScriptLocator.isSupported(by)) {
+            return new WebDriverWait(driver, timeout).until(pollingCondition);
+        }
+
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        Map<String, Object> locator = ScriptLocator.toScriptArgument(by);
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new TimeoutException(String.format(
+                    "Expected condition failed: waiting for %s of element located by %s (tried for %d ms)",
+                    condition, by, timeout.toMillis()));
+            }
+            try {
+                Map<?, ?> result = (Map<?, ?>) ((JavascriptExecutor) driver).executeAsyncScript(
+                    WAIT_SCRIPT, locator, condition, Math.min(remaining, MAX_SCRIPT_MILLIS));
+                if (result != null && Boolean.TRUE.equals(result.get("met"))) {
+                    Object element = result.get("element");
+                    return (T) (element != null ? element : Boolean.TRUE);
+                }
+            } catch (UnhandledAlertException | NoAlertPresentException e) {
+                throw e;
+            } catch (WebDriverException e) {
+                // Navigation unloads the script; anything else means the script route is unusable here
+                if (!isNavigationAbort(e)) {
+                    logger.debug("Script wait unavailable, polling instead: {}", e.getMessage());
+                    return new WebDriverWait(driver, Duration.ofMillis(Math.max(remaining, 1)))
+                        .until(pollingCondition);
+                }
+            }
+        }
+    }
+
+    private static boolean isNavigationAbort(WebDriverException e) {
+        String message = String.valueOf(e.getMessage()).toLowerCase();
+        return message.contains("unload") || message.contains("navigat")
+            || message.contains("execution context") || message.contains("detached");
+    }
+}
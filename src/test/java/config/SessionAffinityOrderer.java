@@ -0,0 +1,205 @@
+package config;
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.platform.commons.annotation.Testable;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Orders test classes and methods so consecutive tests need the same session, i.e. the same
+ * {@link Browser} under the same {@link BrowserProfile}. The browsers of a method come from its
+ * {@code @EnumSource(Browser.class)}, otherwise the default browser. Classes and methods are
+ * chained greedily: the next one is whichever starts with the fewest session changes after the previous.
+ * Only whole classes and methods move: the invocations of one parameterized method always run
+ * together in the order of their source, so a method over several browsers cannot be regrouped.
+ * Registered in the surefire configuration as the default class and method orderer, it replaces
+ * JUnit's default method order in every test class of the suite that has no {@code @TestMethodOrder}.
+ * At discovery it logs the launches it expects to save; at exit it logs the sessions the driver
+ * pools actually created against the sessions they handed out.
+ */
+public class SessionAffinityOrderer implements ClassOrderer, MethodOrderer {
+    private static final Logger logger = LoggerFactory.getLogger(SessionAffinityOrderer.class);
+    private static final Map<Method, List<String>> sessionKeys = new ConcurrentHashMap<>();
+    private static final AtomicBoolean reportRegistered = new AtomicBoolean();
+
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        List<? extends ClassDescriptor> classes = context.getClassDescriptors();
+        List<List<String>> defaultOrder = new ArrayList<>();
+        classes.forEach(descriptor -> defaultOrder.add(sessionsOf(testMethods(descriptor.getTestClass()))));
+
+        String start = sessionKey(getDefaultBrowser());
+        List<ClassDescriptor> ordered = chain(new ArrayList<ClassDescriptor>(classes), start,
+            descriptor -> sessionsOf(order(testMethods(descriptor.getTestClass()), start)));
+        Map<ClassDescriptor, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            positions.put(ordered.get(i), i);
+        }
+        classes.sort(Comparator.comparing(positions::get));
+
+        List<String> before = defaultOrder.stream().flatMap(List::stream).collect(Collectors.toList());
+        List<String> after = new ArrayList<>();
+        String current = start;
+        for (ClassDescriptor descriptor : classes) {
+            List<String> sessions = sessionsOf(order(testMethods(descriptor.getTestClass()), current));
+            after.addAll(sessions);
+            current = sessions.isEmpty() ? current : sessions.get(sessions.size() - 1);
+        }
+        int launchesBefore = countLaunches(before);
+        int launchesAfter = countLaunches(after);
+        // An estimate for one thread from the discovered methods; the actual count is logged at exit
+        logger.info("Session affinity order: about {} session change(s) for {} test invocation(s), {} in default order",
+            launchesAfter, after.size(), launchesBefore);
+        if (reportRegistered.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> logger.info(
+                "Session affinity result: {} driver session(s) created for {} session borrow(s)",
+                DriverPool.getSessionsCreated(), DriverPool.getBorrows())));
+        }
+    }
+
+    @Override
+    public void orderMethods(MethodOrdererContext context) {
+        List<? extends MethodDescriptor> methods = context.getMethodDescriptors();
+        List<Method> ordered = order(methods.stream().map(MethodDescriptor::getMethod).collect(Collectors.toList()),
+            sessionKey(getDefaultBrowser()));
+        methods.sort(Comparator.comparing(descriptor -> ordered.indexOf(descriptor.getMethod())));
+    }
+
+    @Override
+    public Optional<ExecutionMode> getDefaultExecutionMode() {
+        // Keep the configured parallel.mode.methods; with concurrent methods the order only sets the start order
+        return Optional.empty();
+    }
+
+    private static List<Method> order(List<Method> methods, String start) {
+        return chain(methods, start, SessionAffinityOrderer::sessionsOf);
+    }
+
+    /**
+     * Greedy ordering: repeatedly takes the item that adds the fewest session changes after the
+     * session the previous item ended with. Ties keep the incoming order.
+     */
+    private static <T> List<T> chain(List<T> items, String start, Function<T, List<String>> sessions) {
+        List<T> remaining = new ArrayList<>(items);
+        List<T> ordered = new ArrayList<>();
+        String current = start;
+        while (!remaining.isEmpty()) {
+            T best = null;
+            int bestCost = Integer.MAX_VALUE;
+            for (T item : remaining) {
+                List<String> keys = new ArrayList<>();
+                keys.add(current);
+                keys.addAll(sessions.apply(item));
+                int cost = countLaunches(keys) - 1;
+                if (cost < bestCost) {
+                    best = item;
+                    bestCost = cost;
+                }
+            }
+            remaining.remove(best);
+            ordered.add(best);
+            List<String> keys = sessions.apply(best);
+            current = keys.isEmpty() ? current : keys.get(keys.size() - 1);
+        }
+        return ordered;
+    }
+
+    private static List<String> sessionsOf(List<Method> methods) {
+        List<String> keys = new ArrayList<>();
+        methods.forEach(method -> keys.addAll(sessionsOf(method)));
+        return keys;
+    }
+
+    /**
+     * Gets the session each invocation of a test method needs, in invocation order.
+     */
+    private static List<String> sessionsOf(Method method) {
+        return sessionKeys.computeIfAbsent(method, m -> browsersOf(m).stream()
+            .map(SessionAffinityOrderer::sessionKey)
+            .collect(Collectors.toList()));
+    }
+
+    private static Set<Browser> browsersOf(Method method) {
+        Optional<EnumSource> source = AnnotationSupport.findAnnotation(method, EnumSource.class);
+        if (source.isEmpty() || source.get().value() != Browser.class) {
+            return EnumSet.of(getDefaultBrowser());
+        }
+        EnumSource enumSource = source.get();
+        List<String> names = Arrays.asList(enumSource.names());
+        Set<Browser> browsers = EnumSet.noneOf(Browser.class);
+        for (Browser browser : Browser.values()) {
+            boolean selected;
+            switch (enumSource.mode()) {
+                case EXCLUDE:
+                    selected = !names.contains(browser.name());
+                    break;
+                case MATCH_ALL:
+                    selected = names.stream().allMatch(name -> Pattern.matches(name, browser.name()));
+                    break;
+                case MATCH_ANY:
+                    selected = names.stream().anyMatch(name -> Pattern.matches(name, browser.name()));
+                    break;
+                default:
+                    selected = names.isEmpty() || names.contains(browser.name());
+            }
+            if (selected) {
+                browsers.add(browser);
+            }
+        }
+        return browsers;
+    }
+
+    private static List<Method> testMethods(Class<?> testClass) {
+        return Arrays.stream(testClass.getDeclaredMethods())
+            .filter(method -> AnnotationSupport.isAnnotated(method, Testable.class))
+            .sorted(Comparator.comparing(Method::getName))
+            .collect(Collectors.toList());
+    }
+
+    private static String sessionKey(Browser browser) {
+        return browser.getValue() + "/" + BrowserProfile.active().getName();
+    }
+
+    private static Browser getDefaultBrowser() {
+        // Same default as WebDriverConfig.getDefaultBrowser(), read directly so ordering starts no driver pools
+        return Browser.valueOf(System.getProperty("browser", "chrome").toUpperCase());
+    }
+
+    /**
+     * Counts the launches a single thread needs when it keeps its session until the required one changes.
+     */
+    private static int countLaunches(List<String> sessions) {
+        int launches = 0;
+        String current = null;
+        for (String session : sessions) {
+            if (!session.equals(current)) {
+                launches++;
+                current = session;
+            }
+        }
+        return launches;
+    }
+}
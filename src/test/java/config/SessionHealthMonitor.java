@@ -0,0 +1,328 @@
+package config;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches the health of every pooled session on one shared scheduler thread and decides when
+ * a session is worn out. Tracked per session: tests served, command latency of the health check
+ * and, for local sessions on Linux, memory and CPU of the browser process tree read from /proc.
+ * Memory is the summed PSS of the tree (pages shared between its processes are split among them, not
+ * counted in each), read from smaps_rollup; kernels without it fall back to summed RSS, which overstates.
+ * A session is recycled when it served "session.recycle.max.tests" tests, its browser uses more than
+ * "session.recycle.max.memory.mb", its smoothed CPU stays above "session.recycle.max.cpu.percent"
+ * (of one core), or its latency grew by "session.recycle.latency.factor" over its first
+ * checks. Samples never touch the session itself; {@link DriverPool} asks {@link #shouldRecycle}
+ * when a test releases the session, so a running test is never interrupted. A threshold of 0 disables it.
+ */
+public class SessionHealthMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(SessionHealthMonitor.class);
+    private static final int BASELINE_SAMPLES = 3;
+    private static final double LATENCY_SMOOTHING = 0.3;
+    private static final double CPU_SMOOTHING = 0.3;
+    // USER_HZ, the unit of utime and stime in /proc/<pid>/stat; 100 on every common Linux build
+    private static final double CLOCK_TICKS = 100;
+    private static final Path PROC = Paths.get("/proc");
+    private static final Map<WebDriver, Health> sessions = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-health-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        long interval = Math.max(1, TestConfig.getLongProperty("session.health.interval.seconds", 15));
+        scheduler.scheduleWithFixedDelay(SessionHealthMonitor::sample, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private SessionHealthMonitor() {
+    }
+
+    /**
+     * Runs a periodic task on the monitor thread, e.g. the idle session cleanup of {@link WebDriverConfig}.
+     * @param task Task to run
+     * @param period Delay between runs
+     * @param unit Unit of the period
+     * @return Handle to cancel the task
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long period, TimeUnit unit) {
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warn("Scheduled session task failed: {}", e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Starts watching a newly launched session.
+     * @param driver New session
+     * @param browser Browser of the session
+     */
+    public static void register(WebDriver driver, Browser browser) {
+        sessions.put(driver, new Health(browser, findBrowserProcess(driver)));
+    }
+
+    /**
+     * Stops watching a session that was quit.
+     * @param driver Quit session
+     */
+    public static void unregister(WebDriver driver) {
+        sessions.remove(driver);
+    }
+
+    /**
+     * Records the round trip of a command that does no work in the browser, e.g. the pool's health check.
+     * @param driver Session the command ran on
+     * @param nanos Round trip time
+     */
+    public static void recordLatency(WebDriver driver, long nanos) {
+        Health health = sessions.get(driver);
+        if (health != null) {
+            health.recordLatency(nanos / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Counts a finished test and checks the thresholds. Called when a test releases the session.
+     * @param driver Released session
+     * @return Why the session must be replaced, or null while it is healthy
+     */
+    public static String shouldRecycle(WebDriver driver) {
+        Health health = sessions.get(driver);
+        if (health == null) {
+            return null;
+        }
+        String reason = health.testFinished();
+        if (reason != null) {
+            ActionMetrics.count("SessionHealthMonitor", "recycled", 1);
+            logger.info("Recycling {} session after {} test(s): {} (memory {} MB, cpu {}%, latency {} ms, baseline {} ms)",
+                health.browser, health.testsServed, reason, health.memoryMb, Math.round(health.cpuPercent),
+                Math.round(health.latencyMillis), Math.round(health.baselineMillis));
+        }
+        return reason;
+    }
+
+    private static void sample() {
+        if (sessions.isEmpty() || !Files.isDirectory(PROC)) {
+            return;
+        }
+        try {
+            Map<Long, ProcessSample> processes = readProcesses();
+            long now = System.nanoTime();
+            sessions.values().forEach(health -> health.sample(processes, now));
+        } catch (RuntimeException e) {
+            logger.debug("Session health sample failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the command line marker of the session's browser process: Chromium browsers run with
+     * the user data dir reported in their capabilities, Firefox reports its process id.
+     */
+    private static String findBrowserProcess(WebDriver driver) {
+        // Read directly instead of WebDriverConfig.isRemote(), which would start the pools of WebDriverConfig
+        boolean remote = "remote".equalsIgnoreCase(TestConfig.getProperty("execution.mode", "local"));
+        if (remote || !(driver instanceof HasCapabilities)) {
+            return null;
+        }
+        Capabilities capabilities = ((HasCapabilities) driver).getCapabilities();
+        Object pid = capabilities.getCapability("moz:processID");
+        if (pid instanceof Number) {
+            return "pid:" + ((Number) pid).longValue();
+        }
+        for (String vendor : new String[] {"chrome", "msedge"}) {
+            Object details = capabilities.getCapability(vendor);
+            if (details instanceof Map && ((Map<?, ?>) details).get("userDataDir") != null) {
+                return "--user-data-dir=" + ((Map<?, ?>) details).get("userDataDir");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads parent, CPU time and command line of every process in one pass over /proc.
+     */
+    private static Map<Long, ProcessSample> readProcesses() {
+        Map<Long, ProcessSample> processes = new HashMap<>();
+        try (Stream<Path> entries = Files.list(PROC)) {
+            entries.filter(entry -> entry.getFileName().toString().matches("\\d+")).forEach(entry -> {
+                try {
+                    String stat = Files.readString(entry.resolve("stat"), StandardCharsets.UTF_8);
+                    // The command name in parentheses may contain spaces; fields are counted after it
+                    String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                    String cmdline = new String(Files.readAllBytes(entry.resolve("cmdline")), StandardCharsets.UTF_8)
+                        .replace('\0', ' ');
+                    processes.put(Long.parseLong(entry.getFileName().toString()), new ProcessSample(
+                        Long.parseLong(fields[1]),
+                        Long.parseLong(fields[11]) + Long.parseLong(fields[12]),
+                        cmdline));
+                } catch (IOException | RuntimeException e) {
+                    // The process exited while being read
+                }
+            });
+        } catch (IOException e) {
+            logger.debug("Failed to list processes: {}", e.getMessage());
+        }
+        return processes;
+    }
+
+    /**
+     * Reads the memory of one process in kB: PSS where the kernel reports smaps_rollup (4.14+), RSS otherwise.
+     * Both files state kB, so the page size does not matter.
+     */
+    private static long readMemoryKb(long pid) {
+        Path process = PROC.resolve(Long.toString(pid));
+        long kb = readKbField(process.resolve("smaps_rollup"), "Pss:");
+        return kb >= 0 ? kb : Math.max(0, readKbField(process.resolve("status"), "VmRSS:"));
+    }
+
+    private static long readKbField(Path file, String field) {
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> line.startsWith(field))
+                .mapToLong(line -> Long.parseLong(line.substring(field.length()).trim().split("\\s+")[0]))
+                .findFirst()
+                .orElse(-1);
+        } catch (IOException | RuntimeException e) {
+            // Missing on older kernels, unreadable for other users' processes, or the process exited
+            return -1;
+        }
+    }
+
+    private static Set<Long> processTree(String marker, Map<Long, ProcessSample> processes) {
+        Set<Long> tree = new HashSet<>();
+        if (marker.startsWith("pid:")) {
+            tree.add(Long.parseLong(marker.substring(4)));
+        } else {
+            processes.forEach((pid, process) -> {
+                if (process.cmdline.contains(marker)) {
+                    tree.add(pid);
+                }
+            });
+        }
+        tree.retainAll(processes.keySet());
+        // Add renderer, GPU and content processes, which are children of the browser process
+        Deque<Long> queue = new ArrayDeque<>(tree);
+        while (!queue.isEmpty()) {
+            long parent = queue.poll();
+            processes.forEach((pid, process) -> {
+                if (process.parent == parent && tree.add(pid)) {
+                    queue.add(pid);
+                }
+            });
+        }
+        return tree;
+    }
+
+    private static final class Health {
+        private final Browser browser;
+        private final String processMarker;
+        private final List<Double> baseline = new ArrayList<>();
+        private int testsServed;
+        private double baselineMillis;
+        private double latencyMillis;
+        private volatile long memoryMb;
+        private volatile double cpuPercent;
+        private long lastCpuTicks = -1;
+        private boolean cpuSampled;
+        private long lastSampleNanos;
+
+        private Health(Browser browser, String processMarker) {
+            this.browser = browser;
+            this.processMarker = processMarker;
+        }
+
+        private synchronized void recordLatency(double millis) {
+            if (baseline.size() < BASELINE_SAMPLES) {
+                // The first checks of a fresh browser set the reference of this session
+                baseline.add(millis);
+                baselineMillis = baseline.stream().mapToDouble(Double::doubleValue).min().orElse(millis);
+                latencyMillis = baselineMillis;
+            } else {
+                latencyMillis = LATENCY_SMOOTHING * millis + (1 - LATENCY_SMOOTHING) * latencyMillis;
+            }
+        }
+
+        private synchronized String testFinished() {
+            testsServed++;
+            int maxTests = TestConfig.getIntProperty("session.recycle.max.tests", 0);
+            if (maxTests > 0 && testsServed >= maxTests) {
+                return "served " + testsServed + " tests";
+            }
+            long maxMemoryMb = TestConfig.getLongProperty("session.recycle.max.memory.mb", 0);
+            if (maxMemoryMb > 0 && memoryMb > maxMemoryMb) {
+                return "browser uses " + memoryMb + " MB";
+            }
+            double maxCpu = Double.parseDouble(TestConfig.getProperty("session.recycle.max.cpu.percent", "0"));
+            if (maxCpu > 0 && cpuPercent > maxCpu) {
+                return String.format("browser keeps %.0f%% CPU busy", cpuPercent);
+            }
+            double factor = Double.parseDouble(TestConfig.getProperty("session.recycle.latency.factor", "0"));
+            // A floor of 1 ms keeps sub-millisecond jitter from recycling fast sessions
+            if (factor > 0 && baseline.size() >= BASELINE_SAMPLES
+                    && latencyMillis > factor * Math.max(1, baselineMillis)) {
+                return String.format("latency grew from %.1f to %.1f ms", baselineMillis, latencyMillis);
+            }
+            return null;
+        }
+
+        private void sample(Map<Long, ProcessSample> processes, long now) {
+            if (processMarker == null) {
+                return;
+            }
+            long memoryKb = 0;
+            long cpuTicks = 0;
+            for (long pid : processTree(processMarker, processes)) {
+                memoryKb += readMemoryKb(pid);
+                cpuTicks += processes.get(pid).cpuTicks;
+            }
+            memoryMb = memoryKb / 1024;
+            if (lastCpuTicks >= 0 && now > lastSampleNanos) {
+                // Exited child processes take their ticks with them, so the difference can be negative
+                double seconds = (now - lastSampleNanos) / 1e9;
+                double percent = Math.max(0, (cpuTicks - lastCpuTicks) / CLOCK_TICKS / seconds * 100);
+                // Smoothed, so one busy test does not recycle the session but a browser that stays busy does
+                cpuPercent = cpuSampled ? CPU_SMOOTHING * percent + (1 - CPU_SMOOTHING) * cpuPercent : percent;
+                cpuSampled = true;
+            }
+            lastCpuTicks = cpuTicks;
+            lastSampleNanos = now;
+            logger.debug("{} session: memory {} MB, cpu {}%", browser, memoryMb, Math.round(cpuPercent));
+        }
+    }
+
+    private static final class ProcessSample {
+        private final long parent;
+        private final long cpuTicks;
+        private final String cmdline;
+
+        private ProcessSample(long parent, long cpuTicks, String cmdline) {
+            this.parent = parent;
+            this.cpuTicks = cpuTicks;
+            this.cmdline = cmdline;
+        }
+    }
+}
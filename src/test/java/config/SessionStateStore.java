@@ -0,0 +1,314 @@
+package config;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Stores the authenticated state of a browser session (cookies, localStorage, sessionStorage)
+ * per environment and user role, so tests can start logged in without running the UI login.
+ * States are JSON files in "session.state.dir", named "&lt;env&gt;-&lt;role&gt;.json".
+ * A state expires with its first expiring cookie or after "session.state.ttl.minutes",
+ * whichever comes first; an expired or rejected state is replaced by running the login again.
+ */
+public class SessionStateStore {
+    private static final Logger logger = LoggerFactory.getLogger(SessionStateStore.class);
+    private static final String READ_STORAGE_SCRIPT =
+        "function dump(s) { var r = {}; for (var i = 0; i < s.length; i++) { var k = s.key(i); r[k] = s.getItem(k); }"
+        + " return r; }"
+        + "return {local: dump(window.localStorage), session: dump(window.sessionStorage)};";
+    private static final String WRITE_STORAGE_SCRIPT =
+        "var state = arguments[0];"
+        + "Object.keys(state.local).forEach(function(k) { window.localStorage.setItem(k, state.local[k]); });"
+        + "Object.keys(state.session).forEach(function(k) { window.sessionStorage.setItem(k, state.session[k]); });";
+
+    // ReentrantLock rather than synchronized, so waiting virtual threads do not pin their carrier
+    private static final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    private SessionStateStore() {
+    }
+
+    /**
+     * Puts the session in the logged-in state of a role.
+     * Restores the stored state when there is a valid one and checks it with {@code isLoggedIn};
+     * otherwise, or when the application rejects the restored state, runs {@code login} and stores the result.
+     * Restoring and checking run in parallel; only the login is serialized per role, so parallel tests
+     * of a role whose state is missing or rejected wait for one login and then reuse its state.
+     * @param driver Session to authenticate; a fresh or reset pooled session
+     * @param role User role, e.g. "contractManager"
+     * @param startUrl Page to open with the restored state
+     * @param login UI login flow for the role, ending on a logged-in page
+     * @param isLoggedIn Checks on the current page whether the user is logged in
+     */
+    public static void authenticate(WebDriver driver, String role, String startUrl,
+                                    Consumer<WebDriver> login, Predicate<WebDriver> isLoggedIn) {
+        Map<String, Object> tried = load(role);
+        if (restoreAndVerify(driver, role, tried, startUrl, isLoggedIn)) {
+            return;
+        }
+        ReentrantLock lock = locks.computeIfAbsent(role, r -> new ReentrantLock());
+        Map<String, Object> stored;
+        lock.lock();
+        try {
+            stored = load(role);
+            if (stored == null || tried != null && stored.get("capturedAt").equals(tried.get("capturedAt"))) {
+                login(driver, role, login);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Another test of the role logged in while this one waited; its state is checked outside the lock
+        if (!restoreAndVerify(driver, role, stored, startUrl, isLoggedIn)) {
+            lock.lock();
+            try {
+                login(driver, role, login);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static boolean restoreAndVerify(WebDriver driver, String role, Map<String, Object> state, String startUrl,
+                                            Predicate<WebDriver> isLoggedIn) {
+        if (state == null || !restore(driver, role, state, startUrl)) {
+            return false;
+        }
+        if (isLoggedIn.test(driver)) {
+            return true;
+        }
+        logger.info("Stored session of role {} was rejected, logging in again", role);
+        Map<String, Object> current = load(role);
+        // Keep a newer state another test stored meanwhile
+        if (current != null && state.get("capturedAt").equals(current.get("capturedAt"))) {
+            delete(role);
+        }
+        return false;
+    }
+
+    private static void login(WebDriver driver, String role, Consumer<WebDriver> login) {
+        ActionMetrics.time("SessionStateStore", "login", role, ActionMetrics.PHASE_COMMAND,
+            () -> login.accept(driver));
+        capture(driver, role);
+    }
+
+    /**
+     * Restores the stored state of a role and opens the start page.
+     * @param driver Session to restore into
+     * @param role User role
+     * @param startUrl Page to open with the restored state
+     * @return false when no valid state is stored
+     */
+    public static boolean restore(WebDriver driver, String role, String startUrl) {
+        return restore(driver, role, load(role), startUrl);
+    }
+
+    private static boolean restore(WebDriver driver, String role, Map<String, Object> state, String startUrl) {
+        if (state == null) {
+            return false;
+        }
+        if (Instant.parse((String) state.get("expiresAt")).isBefore(Instant.now())) {
+            logger.info("Stored session of role {} has expired", role);
+            delete(role);
+            return false;
+        }
+        ActionMetrics.time("SessionStateStore", "restore", role, ActionMetrics.PHASE_COMMAND, () -> {
+            List<?> cookies = (List<?>) state.get("cookies");
+            if (driver instanceof HasCdp) {
+                // All cookies in one call, for every domain of the login (e.g. SSO), before the first page load
+                ((HasCdp) driver).executeCdpCommand("Network.setCookies", Map.of("cookies", toCdpCookies(cookies)));
+                driver.get((String) state.get("origin"));
+            } else {
+                driver.get((String) state.get("origin"));
+                String host = URI.create((String) state.get("origin")).getHost();
+                for (Object cookie : cookies) {
+                    Cookie restored = toCookie((Map<?, ?>) cookie);
+                    if (restored.getDomain() == null || host.endsWith(restored.getDomain().replaceFirst("^\\.", ""))) {
+                        driver.manage().addCookie(restored);
+                    }
+                }
+            }
+            ((JavascriptExecutor) driver).executeScript(WRITE_STORAGE_SCRIPT, state.get("storage"));
+            if (!startUrl.equals(state.get("origin"))) {
+                driver.get(startUrl);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Stores the current state of a logged-in session for a role.
+     * @param driver Logged-in session, on a page of the application origin
+     * @param role User role
+     */
+    public static void capture(WebDriver driver, String role) {
+        URI current = URI.create(driver.getCurrentUrl());
+        String origin = current.getScheme() + "://" + current.getAuthority() + "/";
+        List<Map<String, Object>> cookies = driver instanceof HasCdp
+            ? readCdpCookies((HasCdp) driver)
+            : readCookies(driver);
+        Map<?, ?> storage = (Map<?, ?>) ((JavascriptExecutor) driver).executeScript(READ_STORAGE_SCRIPT);
+
+        Instant expiresAt = Instant.now().plus(
+            Duration.ofMinutes(TestConfig.getLongProperty("session.state.ttl.minutes", 60)));
+        for (Map<String, Object> cookie : cookies) {
+            Object expiry = cookie.get("expiry");
+            if (expiry instanceof Number && ((Number) expiry).longValue() > 0) {
+                Instant cookieExpiry = Instant.ofEpochSecond(((Number) expiry).longValue());
+                expiresAt = cookieExpiry.isBefore(expiresAt) ? cookieExpiry : expiresAt;
+            }
+        }
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("environment", TestConfig.getEnvironment());
+        state.put("role", role);
+        state.put("origin", origin);
+        state.put("capturedAt", Instant.now().toString());
+        state.put("expiresAt", expiresAt.toString());
+        state.put("cookies", cookies);
+        state.put("storage", storage);
+        save(role, state);
+        logger.info("Stored session of role {} ({} cookies, valid until {})", role, cookies.size(), expiresAt);
+    }
+
+    /**
+     * Deletes the stored state of a role, e.g. after its user was changed.
+     * @param role User role
+     */
+    public static void delete(String role) {
+        try {
+            Files.deleteIfExists(getFile(role));
+        } catch (IOException e) {
+            logger.warn("Failed to delete stored session of role {}: {}", role, e.getMessage());
+        }
+    }
+
+    private static List<Map<String, Object>> readCookies(WebDriver driver) {
+        List<Map<String, Object>> cookies = new ArrayList<>();
+        for (Cookie cookie : driver.manage().getCookies()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", cookie.getName());
+            row.put("value", cookie.getValue());
+            row.put("domain", cookie.getDomain());
+            row.put("path", cookie.getPath());
+            row.put("expiry", cookie.getExpiry() == null ? null : cookie.getExpiry().getTime() / 1000);
+            row.put("secure", cookie.isSecure());
+            row.put("httpOnly", cookie.isHttpOnly());
+            row.put("sameSite", cookie.getSameSite());
+            cookies.add(row);
+        }
+        return cookies;
+    }
+
+    private static List<Map<String, Object>> readCdpCookies(HasCdp driver) {
+        List<Map<String, Object>> cookies = new ArrayList<>();
+        Object all = driver.executeCdpCommand("Network.getAllCookies", Collections.emptyMap()).get("cookies");
+        for (Object item : (List<?>) all) {
+            Map<?, ?> cookie = (Map<?, ?>) item;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", cookie.get("name"));
+            row.put("value", cookie.get("value"));
+            row.put("domain", cookie.get("domain"));
+            row.put("path", cookie.get("path"));
+            // CDP reports session cookies with expires -1
+            Number expires = (Number) cookie.get("expires");
+            row.put("expiry", expires == null || expires.doubleValue() <= 0 ? null : expires.longValue());
+            row.put("secure", cookie.get("secure"));
+            row.put("httpOnly", cookie.get("httpOnly"));
+            row.put("sameSite", cookie.get("sameSite"));
+            cookies.add(row);
+        }
+        return cookies;
+    }
+
+    private static List<Map<String, Object>> toCdpCookies(List<?> cookies) {
+        List<Map<String, Object>> params = new ArrayList<>();
+        for (Object item : cookies) {
+            Map<?, ?> cookie = (Map<?, ?>) item;
+            Map<String, Object> param = new LinkedHashMap<>();
+            param.put("name", cookie.get("name"));
+            param.put("value", cookie.get("value"));
+            param.put("domain", cookie.get("domain"));
+            param.put("path", cookie.get("path") == null ? "/" : cookie.get("path"));
+            param.put("secure", Boolean.TRUE.equals(cookie.get("secure")));
+            param.put("httpOnly", Boolean.TRUE.equals(cookie.get("httpOnly")));
+            if (cookie.get("sameSite") != null) {
+                param.put("sameSite", cookie.get("sameSite"));
+            }
+            if (cookie.get("expiry") instanceof Number) {
+                param.put("expires", ((Number) cookie.get("expiry")).longValue());
+            }
+            params.add(param);
+        }
+        return params;
+    }
+
+    private static Cookie toCookie(Map<?, ?> cookie) {
+        Cookie.Builder builder = new Cookie.Builder((String) cookie.get("name"), (String) cookie.get("value"))
+            .domain((String) cookie.get("domain"))
+            .path(cookie.get("path") == null ? "/" : (String) cookie.get("path"))
+            .isSecure(Boolean.TRUE.equals(cookie.get("secure")))
+            .isHttpOnly(Boolean.TRUE.equals(cookie.get("httpOnly")));
+        if (cookie.get("sameSite") != null) {
+            builder.sameSite((String) cookie.get("sameSite"));
+        }
+        if (cookie.get("expiry") instanceof Number) {
+            builder.expiresOn(new Date(((Number) cookie.get("expiry")).longValue() * 1000));
+        }
+        return builder.build();
+    }
+
+    private static Map<String, Object> load(String role) {
+        Path file = getFile(role);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return new Json().toType(Files.readString(file, StandardCharsets.UTF_8), Json.MAP_TYPE);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable session state {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void save(String role, Map<String, Object> state) {
+        Path file = getFile(role);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.writeString(tmp, new Json().toJson(state), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to store session of role {}: {}", role, e.getMessage());
+        }
+    }
+
+    private static Path getFile(String role) {
+        String name = (TestConfig.getEnvironment() + "-" + role).replaceAll("[^A-Za-z0-9._-]", "_");
+        return Paths.get(TestConfig.getProperty("session.state.dir", "test-output/session-state"))
+            .resolve(name + ".json");
+    }
+}
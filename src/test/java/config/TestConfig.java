@@ -4,6 +4,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
 
+/**
+ * Loads the environment properties selected by the "env" system property.
+ * A system property with the same key overrides the file value.
+ */
 public class TestConfig {
     private static final Properties props = new Properties();
     
@@ -12,7 +16,7 @@ public class TestConfig {
     }
     
     private static void loadProperties() {
-        String env = System.getProperty("env", "qa");
+        String env = getEnvironment();
         try (InputStream input = TestConfig.class.getClassLoader()
                 .getResourceAsStream("config/" + env + ".properties")) {
             if (input != null) {
@@ -22,12 +26,35 @@ public class TestConfig {
             throw new RuntimeException("Failed to load " + env + " properties", e);
         }
     }
+
+    /**
+     * Gets the name of the active environment, e.g. "qa".
+     * @return environment name
+     */
+    public static String getEnvironment() {
+        return System.getProperty("env", "qa");
+    }
     
     public static String getProperty(String key, String defaultValue) {
-        return props.getProperty(key, defaultValue);
+        return System.getProperty(key, props.getProperty(key, defaultValue));
     }
     
     public static String getProperty(String key) {
-        return props.getProperty(key);
+        return System.getProperty(key, props.getProperty(key));
+    }
+
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public static long getLongProperty(String key, long defaultValue) {
+        String value = getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
     }
-} 
\ No newline at end of file
+}
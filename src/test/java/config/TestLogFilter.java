@@ -0,0 +1,19 @@
+package config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Passes only log events written while a test runs, i.e. with the "testFile" MDC key
+ * set by {@link TestResultLogger}. Keeps per-test log files free of framework start-up output.
+ */
+public class TestLogFilter extends Filter<ILoggingEvent> {
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        return event.getMDCPropertyMap().containsKey(TestResultLogger.MDC_TEST_FILE)
+            ? FilterReply.NEUTRAL
+            : FilterReply.DENY;
+    }
+}
@@ -0,0 +1,357 @@
+package config;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.TestWatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Skips tests that already passed with the same inputs, like a build cache skips unchanged tasks.
+ * The key of a test is a SHA-256 over the bytecode of its class and every project class it
+ * reaches (page objects, {@link BasePage}, the framework), the file names of the dependency jars
+ * (which carry their versions), the environment file with its system property overrides, the version
+ * of the application under test ("result.cache.app.version"), the browser and the test's unique id.
+ * No machine-specific path is part of the key, so agents with the same inputs compute the same keys.
+ * A pass is stored as an immutable file named after the key in "result.cache.dir"; writes are atomic,
+ * so agents can share the directory. Matching tests are reported as skipped with "cached pass".
+ * The cache is opt-in ("result.cache.enabled") and stays off while the application version is unknown,
+ * because a pass says nothing about a newer deployment. Run everything with -Dresult.cache.force=true.
+ */
+public class TestResultCache implements ExecutionCondition, TestWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(TestResultCache.class);
+    private static final String KEY = "resultCacheKey";
+    private static final Pattern DESCRIPTOR_CLASS = Pattern.compile("L([\\w/$]+);");
+    private static final Map<Class<?>, String> classHashes = new ConcurrentHashMap<>();
+    private static volatile String dependencyHash;
+    private static volatile boolean warnedUnversioned;
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+        if (context.getTestMethod().isEmpty() || !isEnabled()) {
+            return ConditionEvaluationResult.enabled("Result cache not applicable");
+        }
+        String key = computeKey(context.getUniqueId(), context.getRequiredTestClass());
+        getStore(context).put(KEY, key);
+        if (TestConfig.getBooleanProperty("result.cache.force", false)) {
+            return ConditionEvaluationResult.enabled("Result cache bypassed (result.cache.force)");
+        }
+        Path entry = getEntry(key);
+        if (isValid(entry)) {
+            ActionMetrics.count("TestResultCache", "cachedPass", 1);
+            logger.info("Cached pass: {} ({})", context.getDisplayName(), key.substring(0, 12));
+            return ConditionEvaluationResult.disabled("cached pass " + key.substring(0, 12)
+                + ", inputs unchanged since the last passing run");
+        }
+        return ConditionEvaluationResult.enabled("No cached pass");
+    }
+
+    @Override
+    public void testSuccessful(ExtensionContext context) {
+        String key = getStore(context).get(KEY, String.class);
+        if (key != null) {
+            store(key, context.getUniqueId());
+        }
+    }
+
+    @Override
+    public void testFailed(ExtensionContext context, Throwable cause) {
+        invalidate(context);
+    }
+
+    @Override
+    public void testAborted(ExtensionContext context, Throwable cause) {
+        invalidate(context);
+    }
+
+    private static boolean isEnabled() {
+        if (!TestConfig.getBooleanProperty("result.cache.enabled", false)) {
+            return false;
+        }
+        if (TestConfig.getProperty("result.cache.app.version", "").isBlank()) {
+            if (!warnedUnversioned) {
+                warnedUnversioned = true;
+                logger.warn("Result cache disabled: set result.cache.app.version to the build of the application under test");
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * A flaky test that passed and failed with the same inputs must run again.
+     */
+    private static void invalidate(ExtensionContext context) {
+        String key = getStore(context).get(KEY, String.class);
+        if (key != null) {
+            try {
+                Files.deleteIfExists(getEntry(key));
+            } catch (IOException e) {
+                logger.warn("Failed to remove cached result {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Computes the cache key of a test.
+     * @param uniqueId JUnit unique id of the test
+     * @param testClass Class declaring the test
+     * @return Hex SHA-256 of all inputs
+     */
+    static String computeKey(String uniqueId, Class<?> testClass) {
+        MessageDigest digest = sha256();
+        update(digest, "test", uniqueId);
+        // Same default as WebDriverConfig.getDefaultBrowser(), read directly so cached tests start no driver pools
+        update(digest, "browser", System.getProperty("browser", "chrome").toLowerCase());
+        update(digest, "profile", BrowserProfile.active().getName());
+        update(digest, "classes", classHashes.computeIfAbsent(testClass,
+            c -> hashReachableClasses(c.getName().replace('.', '/'), TestResultCache::readClass)));
+        update(digest, "dependencies", hashDependencies());
+        update(digest, "app", TestConfig.getProperty("result.cache.app.version", ""));
+        update(digest, "environment", hashEnvironment());
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Hashes the file names of the jars on the class path. Maven names them artifact-version.jar,
+     * so a dependency upgrade changes the key while the local repository path does not matter.
+     */
+    private static String hashDependencies() {
+        if (dependencyHash == null) {
+            Set<String> jars = new TreeSet<>();
+            for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                if (entry.endsWith(".jar")) {
+                    jars.add(Paths.get(entry).getFileName().toString());
+                }
+            }
+            dependencyHash = toHex(sha256().digest(String.join("\n", jars).getBytes(StandardCharsets.UTF_8)));
+        }
+        return dependencyHash;
+    }
+
+    /**
+     * Hashes the bytecode of a test class and every class of the same code location it references,
+     * following references transitively, so a change in a page object or in BasePage changes the key.
+     */
+    static String hashReachableClasses(String testClass, Function<String, byte[]> classReader) {
+        String location = locationOf(testClass);
+        Set<String> visited = new TreeSet<>();
+        Map<String, byte[]> hashes = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(testClass);
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (!visited.add(name)) {
+                continue;
+            }
+            byte[] bytecode = classReader.apply(name);
+            if (bytecode == null) {
+                continue;
+            }
+            hashes.put(name, sha256().digest(bytecode));
+            for (String referenced : referencedClasses(bytecode)) {
+                if (!visited.contains(referenced) && location != null && location.equals(locationOf(referenced))) {
+                    queue.add(referenced);
+                }
+            }
+        }
+        MessageDigest digest = sha256();
+        for (String name : visited) {
+            byte[] hash = hashes.get(name);
+            if (hash != null) {
+                update(digest, name, toHex(hash));
+            }
+        }
+        logger.debug("Result cache key of {} covers {} classes", testClass, visited.size());
+        return toHex(digest.digest());
+    }
+
+    static String hashEnvironment() {
+        String file = "config/" + TestConfig.getEnvironment() + ".properties";
+        MessageDigest digest = sha256();
+        Properties environment = new Properties();
+        try (InputStream input = TestResultCache.class.getClassLoader().getResourceAsStream(file)) {
+            if (input != null) {
+                byte[] content = input.readAllBytes();
+                digest.update(content);
+                environment.load(new ByteArrayInputStream(content));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file, e);
+        }
+        // System properties override the file, see TestConfig
+        Map<String, String> overrides = new TreeMap<>();
+        for (String name : environment.stringPropertyNames()) {
+            String value = System.getProperty(name);
+            if (value != null && !name.startsWith("result.cache.")) {
+                overrides.put(name, value);
+            }
+        }
+        update(digest, "overrides", overrides.toString());
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Reads the class names a class file refers to from its constant pool:
+     * class entries plus types named in field and method descriptors.
+     */
+    static Set<String> referencedClasses(byte[] bytecode) {
+        Set<String> names = new HashSet<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytecode))) {
+            in.readInt();
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            int[] classIndexes = new int[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1:
+                        utf8[i] = in.readUTF();
+                        break;
+                    case 7:
+                        classIndexes[i] = in.readUnsignedShort();
+                        break;
+                    case 8: case 16: case 19: case 20:
+                        in.readUnsignedShort();
+                        break;
+                    case 15:
+                        in.skipBytes(3);
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        in.skipBytes(4);
+                        break;
+                    case 5: case 6:
+                        in.skipBytes(8);
+                        i++;
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag " + tag);
+                }
+            }
+            for (int i = 1; i < count; i++) {
+                if (classIndexes[i] > 0 && utf8[classIndexes[i]] != null) {
+                    String name = utf8[classIndexes[i]];
+                    names.add(name.startsWith("[") ? name.replaceAll("^\\[+L?|;$", "") : name);
+                }
+                if (utf8[i] != null && utf8[i].indexOf('L') >= 0) {
+                    Matcher matcher = DESCRIPTOR_CLASS.matcher(utf8[i]);
+                    while (matcher.find()) {
+                        names.add(matcher.group(1));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to parse class file: {}", e.getMessage());
+        }
+        return names;
+    }
+
+    static byte[] readClass(String internalName) {
+        try (InputStream input = TestResultCache.class.getClassLoader().getResourceAsStream(internalName + ".class")) {
+            return input == null ? null : input.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the directory or jar a class was loaded from; project classes share the test class location.
+     */
+    private static String locationOf(String internalName) {
+        java.net.URL url = TestResultCache.class.getClassLoader().getResource(internalName + ".class");
+        if (url == null) {
+            return null;
+        }
+        String path = url.toString();
+        return path.substring(0, path.length() - (internalName + ".class").length());
+    }
+
+    private static boolean isValid(Path entry) {
+        try {
+            if (!Files.exists(entry)) {
+                return false;
+            }
+            Duration age = Duration.between(Files.getLastModifiedTime(entry).toInstant(), Instant.now());
+            return age.toHours() < TestConfig.getLongProperty("result.cache.ttl.hours", 168);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void store(String key, String testId) {
+        Path entry = getEntry(key);
+        try {
+            Files.createDirectories(entry.getParent());
+            Path tmp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            Files.writeString(tmp, "test=" + testId + "\npassedAt=" + Instant.now() + "\n", StandardCharsets.UTF_8);
+            // Another agent may store the same key at the same time; both write the same meaning
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to store cached result {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static Path getEntry(String key) {
+        String dir = TestConfig.getProperty("result.cache.dir", "");
+        Path root = dir.isBlank() ? DriverBinaryCache.getCacheDir().resolve("results") : Paths.get(dir);
+        // Two-character fan-out keeps directories small on shared file systems
+        return root.resolve(key.substring(0, 2)).resolve(key + ".pass");
+    }
+
+    private static void update(MessageDigest digest, String name, String value) {
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static ExtensionContext.Store getStore(ExtensionContext context) {
+        return context.getStore(ExtensionContext.Namespace.create(TestResultCache.class, context.getUniqueId()));
+    }
+}
@@ -0,0 +1,55 @@
+package config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tests.GoogleSearchTest;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class TestResultCacheTest {
+    private static final String TEST_ID = "[engine:junit-jupiter]/[class:tests.GoogleSearchTest]";
+
+    @AfterEach
+    void clearOverrides() {
+        System.clearProperty("base.url");
+        System.clearProperty("result.cache.app.version");
+    }
+
+    @Test
+    void keyIsStableForUnchangedInputs() {
+        assertEquals(TestResultCache.computeKey(TEST_ID, GoogleSearchTest.class),
+            TestResultCache.computeKey(TEST_ID, GoogleSearchTest.class));
+    }
+
+    @Test
+    void changedPageObjectChangesKey() {
+        String testClass = "tests/GoogleSearchTest";
+        String original = TestResultCache.hashReachableClasses(testClass, TestResultCache::readClass);
+        String changed = TestResultCache.hashReachableClasses(testClass, name -> {
+            byte[] bytecode = TestResultCache.readClass(name);
+            if (bytecode != null && name.equals("pageobjects/GooglePage")) {
+                // A trailing byte stands in for an edited method body
+                bytecode = Arrays.copyOf(bytecode, bytecode.length + 1);
+            }
+            return bytecode;
+        });
+        assertNotEquals(original, changed, "A page object reached by the test is part of its key");
+    }
+
+    @Test
+    void changedEnvironmentPropertyChangesKey() {
+        String original = TestResultCache.computeKey(TEST_ID, GoogleSearchTest.class);
+        System.setProperty("base.url", "https://example.test");
+        assertNotEquals(original, TestResultCache.computeKey(TEST_ID, GoogleSearchTest.class));
+    }
+
+    @Test
+    void changedApplicationVersionChangesKey() {
+        System.setProperty("result.cache.app.version", "1.0.0");
+        String original = TestResultCache.computeKey(TEST_ID, GoogleSearchTest.class);
+        System.setProperty("result.cache.app.version", "1.0.1");
+        assertNotEquals(original, TestResultCache.computeKey(TEST_ID, GoogleSearchTest.class));
+    }
+}
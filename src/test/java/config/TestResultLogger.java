@@ -1,24 +1,69 @@
 package config;
 
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.TestWatcher;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import ch.qos.logback.classic.LoggerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.openqa.selenium.TakesScreenshot;
-import org.openqa.selenium.OutputType;
-import java.io.File;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import org.apache.commons.io.FileUtils;
-import org.openqa.selenium.WebDriver;
+import org.slf4j.MDC;
 
 /**
  * JUnit extension for test result logging and screenshot capture.
- * Handles test failures and success logging with screenshot capability.
+ * Handles test failures and success logging with screenshot capability,
+ * and tags {@link ActionMetrics} samples and log events (MDC) with the running test.
+ * The MDC key "testFile" splits the log into one file per test, which failures point to.
+ * Also starts the screenshot retention of the JVM with the first test class.
  */
-public class TestResultLogger implements TestWatcher {
+public class TestResultLogger implements TestWatcher, BeforeAllCallback, BeforeEachCallback,
+        BeforeTestExecutionCallback, AfterTestExecutionCallback {
     private static final Logger logger = LoggerFactory.getLogger(TestResultLogger.class);
-    private static final String SCREENSHOT_DIR = "test-output/screenshots";
+    private static final String START_TIME = "startTime";
+    static final String MDC_TEST_ID = "testId";
+    static final String MDC_TEST_FILE = "testFile";
+    static final String MDC_BROWSER = "browser";
+    static final String MDC_THREAD = "thread";
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        ScreenshotService.startRetention();
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        String testId = getTestId(context);
+        ActionMetrics.setCurrentTest(testId);
+        MDC.put(MDC_TEST_ID, testId);
+        MDC.put(MDC_TEST_FILE, getTestLog(testId).toString());
+        MDC.put(MDC_THREAD, Thread.currentThread().getName());
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        getStore(context).put(START_TIME, System.nanoTime());
+        tagBrowser(WebDriverConfig.getBrowser());
+        FrameRecorder.start(WebDriverConfig.getCurrentDriver());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        Long startTime = getStore(context).remove(START_TIME, Long.class);
+        if (startTime != null) {
+            ActionMetrics.record(context.getRequiredTestClass().getSimpleName(), "testExecution", null,
+                ActionMetrics.PHASE_COMMAND, System.nanoTime() - startTime);
+        }
+        Map<String, Long> network = NetworkControl.collect(WebDriverConfig.getCurrentDriver());
+        if (!network.isEmpty()) {
+            logger.info("Network for {}: {}", context.getDisplayName(), network);
+        }
+    }
 
     @Override
     public void testFailed(ExtensionContext context, Throwable cause) {
@@ -27,43 +72,95 @@ public class TestResultLogger implements TestWatcher {
             context.getDisplayName().replaceAll("[\\[\\]]", ""));
             
         logger.error("Test failed: {} with error: {}", testName, cause.getMessage());
+        attachTestLog(context);
         
         if (context.getTestInstance().isPresent()) {
             BaseTest test = (BaseTest) context.getTestInstance().get();
-            WebDriver driver = test.getDriver();
-            
             try {
-                if (driver != null && driver instanceof TakesScreenshot) {
-                    File screenshotDir = new File(SCREENSHOT_DIR);
-                    screenshotDir.mkdirs();
-
-                    String filename = String.format("%s_%s_%s.png",
-                        context.getTestMethod().get().getName(),  // Method name
-                        test.getBrowser().name().toLowerCase(),   // Browser name
-                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
-
-                    File destFile = new File(screenshotDir, filename);
-                    File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-                    FileUtils.copyFile(screenshot, destFile);
-                    
-                    logger.info("Screenshot saved to: {}", destFile.getAbsolutePath());
-                } else {
-                    logger.error("WebDriver not available for taking screenshot");
-                }
-            } catch (Exception e) {
-                logger.error("Failed to capture screenshot: {}", e.getMessage());
-                e.printStackTrace();
+                FrameRecorder.flush(WebDriverConfig.getCurrentDriver(), context.getTestMethod().get().getName(), test.getBrowser());
+                ActionMetrics.time("TestResultLogger", "takeScreenshot", null, ActionMetrics.PHASE_COMMAND,
+                    () -> test.takeScreenshot(context.getTestMethod().get().getName()));
             } finally {
-                test.quitDriver();
+                release(test);
             }
         }
+        end();
     }
 
     @Override
     public void testSuccessful(ExtensionContext context) {
         logger.info("Test passed: {}", context.getDisplayName());
         if (context.getTestInstance().isPresent()) {
-            ((BaseTest) context.getTestInstance().get()).quitDriver();
+            release((BaseTest) context.getTestInstance().get());
         }
+        end();
+    }
+
+    @Override
+    public void testAborted(ExtensionContext context, Throwable cause) {
+        logger.warn("Test aborted: {} - {}", context.getDisplayName(), cause.getMessage());
+        if (context.getTestInstance().isPresent()) {
+            release((BaseTest) context.getTestInstance().get());
+        }
+        end();
+    }
+
+    /**
+     * Tags the log events of the current thread with the browser under test.
+     * @param browser Browser, or null to remove the tag
+     */
+    static void tagBrowser(Browser browser) {
+        if (browser == null) {
+            MDC.remove(MDC_BROWSER);
+        } else {
+            MDC.put(MDC_BROWSER, browser.getValue());
+        }
+    }
+
+    private static void end() {
+        ActionMetrics.setCurrentTest(null);
+        MDC.remove(MDC_TEST_ID);
+        MDC.remove(MDC_TEST_FILE);
+        MDC.remove(MDC_BROWSER);
+        MDC.remove(MDC_THREAD);
+    }
+
+    /**
+     * Points the failure at the test's own log file and publishes it as a report entry.
+     * The file is written by the asynchronous "TEST_FILES" appender and may still be catching up.
+     */
+    private static void attachTestLog(ExtensionContext context) {
+        Path log = getTestLog(getTestId(context)).toAbsolutePath();
+        logger.error("Test log: {}", log);
+        context.publishReportEntry("testLog", log.toString());
+    }
+
+    /**
+     * Gets the per-test log file of this run, under the "TEST_LOG_DIR" property of logback-test.xml.
+     */
+    private static Path getTestLog(String testId) {
+        String dir = ((LoggerContext) LoggerFactory.getILoggerFactory()).getProperty("TEST_LOG_DIR");
+        return Paths.get(dir != null ? dir : "test-output/logs/tests", testId.replaceAll("[^A-Za-z0-9._-]+", "_") + ".log");
+    }
+
+    private static void release(BaseTest test) {
+        ActionMetrics.time("TestResultLogger", "releaseDriver", null, ActionMetrics.PHASE_COMMAND,
+            test::releaseDriver);
+    }
+
+    /**
+     * Builds the identifier used to tag metrics, e.g. "GoogleSearchTest.testBasicSearch[1] CHROME".
+     * @param context Extension context of a test method
+     * @return Test identifier
+     */
+    static String getTestId(ExtensionContext context) {
+        String method = context.getTestMethod().map(Method::getName).orElse("");
+        String displayName = context.getDisplayName();
+        return context.getRequiredTestClass().getSimpleName() + "." + method
+            + (displayName.startsWith("[") ? displayName : "");
+    }
+
+    private static ExtensionContext.Store getStore(ExtensionContext context) {
+        return context.getStore(ExtensionContext.Namespace.create(TestResultLogger.class, context.getUniqueId()));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,332 @@
+package config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Archive of recorded HTTP responses used by {@link TrafficProxy}. The file is a sequence of records after
+ * a magic number: body records hold a response body once per distinct content (keyed by its SHA-256),
+ * exchange records hold the request key, status and headers of a response and refer to a body.
+ * There is no index; {@link #open} scans the memory-mapped file once, so an archive cut short by a
+ * crash stays readable up to its last complete record. Bodies are served as slices of the mapping.
+ * A recording is written to "&lt;archive&gt;.partial" and moved over the archive when it finishes; the
+ * partial file of a recording killed before that is replayed in place of the older archive.
+ */
+public class TrafficArchive {
+    private static final Logger logger = LoggerFactory.getLogger(TrafficArchive.class);
+    private static final int MAGIC = 0x52524131; // "RRA1"
+    private static final byte BODY = 1;
+    private static final byte EXCHANGE = 2;
+    private static final int HASH_LENGTH = 32;
+
+    private final MappedByteBuffer mapping;
+    private final Map<String, Response> responses;
+
+    private TrafficArchive(MappedByteBuffer mapping, Map<String, Response> responses) {
+        this.mapping = mapping;
+        this.responses = responses;
+    }
+
+    /**
+     * Maps an archive for replay, or the partial file of a recording that was killed after the archive
+     * was last written.
+     * @param file Archive file
+     * @return Archive; empty when neither file exists
+     */
+    public static TrafficArchive open(Path file) {
+        Path partial = partialFile(file);
+        try {
+            if (Files.exists(partial) && (!Files.exists(file)
+                    || Files.getLastModifiedTime(partial).compareTo(Files.getLastModifiedTime(file)) > 0)) {
+                logger.warn("Replaying {}, left by a recording that did not finish", partial);
+                file = partial;
+            }
+        } catch (IOException e) {
+            logger.debug("Ignoring partial recording {}: {}", partial, e.getMessage());
+        }
+        if (!Files.exists(file)) {
+            return new TrafficArchive(null, Collections.emptyMap());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new RuntimeException("Traffic archive " + file + " is larger than 2 GB");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TrafficArchive(mapping, scan(file, mapping));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open traffic archive " + file, e);
+        }
+    }
+
+    /**
+     * Gets the file a recording is written to until it finishes.
+     * @param file Archive file
+     * @return Sibling "&lt;archive&gt;.partial" file
+     */
+    static Path partialFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".partial");
+    }
+
+    private static Map<String, Response> scan(Path file, ByteBuffer mapping) {
+        Map<String, Response> responses = new HashMap<>();
+        Map<ByteBuffer, long[]> bodies = new HashMap<>();
+        ByteBuffer in = mapping.duplicate();
+        if (in.remaining() < 4 || in.getInt() != MAGIC) {
+            throw new RuntimeException(file + " is not a traffic archive");
+        }
+        try {
+            while (in.hasRemaining()) {
+                byte type = in.get();
+                if (type == BODY) {
+                    ByteBuffer hash = readHash(in);
+                    int length = in.getInt();
+                    if (length > in.remaining()) {
+                        break;
+                    }
+                    bodies.put(hash, new long[] {in.position(), length});
+                    in.position(in.position() + length);
+                } else if (type == EXCHANGE) {
+                    String key = readString(in);
+                    int status = in.getShort();
+                    int headerCount = in.getShort();
+                    List<String[]> headers = new ArrayList<>(headerCount);
+                    for (int i = 0; i < headerCount; i++) {
+                        headers.add(new String[] {readString(in), readString(in)});
+                    }
+                    long[] body = bodies.get(readHash(in));
+                    if (body != null) {
+                        responses.putIfAbsent(key, new Response(status, headers, (int) body[0], (int) body[1]));
+                    }
+                } else {
+                    break;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            // Truncated last record of an interrupted recording
+        }
+        return responses;
+    }
+
+    /**
+     * Looks up a recorded response.
+     * @param key Request key, see {@link TrafficProxy}
+     * @return Response, or null when the request was not recorded
+     */
+    public Response get(String key) {
+        return responses.get(key);
+    }
+
+    public int size() {
+        return responses.size();
+    }
+
+    /**
+     * Gets the body of a response as a read-only view of the mapped archive, without copying it.
+     * @param response Response of this archive
+     * @return Body, positioned at its start
+     */
+    public ByteBuffer body(Response response) {
+        return mapping.slice(response.bodyOffset, response.bodyLength);
+    }
+
+    private static ByteBuffer readHash(ByteBuffer in) {
+        byte[] hash = new byte[HASH_LENGTH];
+        in.get(hash);
+        return ByteBuffer.wrap(hash);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Recorded response without its body.
+     */
+    public static final class Response {
+        private final int status;
+        private final List<String[]> headers;
+        private final int bodyOffset;
+        private final int bodyLength;
+
+        private Response(int status, List<String[]> headers, int bodyOffset, int bodyLength) {
+            this.status = status;
+            this.headers = headers;
+            this.bodyOffset = bodyOffset;
+            this.bodyLength = bodyLength;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets the end-to-end headers, without Content-Length and hop-by-hop headers.
+         * @return Name and value pairs in recorded order
+         */
+        public List<String[]> getHeaders() {
+            return headers;
+        }
+
+        public int getBodyLength() {
+            return bodyLength;
+        }
+    }
+
+    /**
+     * Appends exchanges to the partial file of a new archive, which replaces the archive file when
+     * the writer is closed. The partial file is locked against recordings of other JVMs.
+     * Safe for concurrent use; the first response recorded for a key wins.
+     */
+    public static final class Writer implements AutoCloseable {
+        private final Path file;
+        private final Path partial;
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final Set<ByteBuffer> writtenBodies = new HashSet<>();
+        private final Set<String> writtenKeys = new HashSet<>();
+        private long bodyBytes;
+        private long duplicateBytes;
+        private boolean closed;
+
+        /**
+         * Starts a new archive, discarding the partial file of an earlier recording that did not finish.
+         * @param file Archive file to replace on close
+         */
+        public Writer(Path file) {
+            this.file = file;
+            this.partial = partialFile(file.toAbsolutePath());
+            try {
+                Files.createDirectories(partial.getParent());
+                this.channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock();
+                if (lock == null) {
+                    channel.close();
+                    throw new RuntimeException("Traffic archive " + file + " is being recorded by another process");
+                }
+                channel.truncate(0);
+                OutputStream stream = Channels.newOutputStream(channel);
+                this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+                out.writeInt(MAGIC);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to create traffic archive " + file, e);
+            }
+        }
+
+        /**
+         * Records a response.
+         * @param key Request key
+         * @param status Status code
+         * @param headers End-to-end headers as name and value pairs
+         * @param body Body as it is sent to the browser
+         * @return false when the key was already recorded or the writer is closed
+         */
+        public synchronized boolean put(String key, int status, List<String[]> headers, byte[] body) {
+            if (closed || !writtenKeys.add(key)) {
+                return false;
+            }
+            ByteBuffer hash = ByteBuffer.wrap(sha256(body));
+            try {
+                if (writtenBodies.add(hash)) {
+                    out.writeByte(BODY);
+                    out.write(hash.array());
+                    out.writeInt(body.length);
+                    out.write(body);
+                    bodyBytes += body.length;
+                } else {
+                    duplicateBytes += body.length;
+                }
+                out.writeByte(EXCHANGE);
+                writeString(key);
+                out.writeShort(status);
+                out.writeShort(headers.size());
+                for (String[] header : headers) {
+                    writeString(header[0]);
+                    writeString(header[1]);
+                }
+                out.write(hash.array());
+                // A recording killed later keeps this response in the partial file
+                out.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write traffic archive " + partial, e);
+            }
+            return true;
+        }
+
+        public synchronized int size() {
+            return writtenKeys.size();
+        }
+
+        /**
+         * Gets the body bytes stored once although several responses share them.
+         * @return Bytes saved by storing each distinct body once
+         */
+        public synchronized long getDuplicateBytes() {
+            return duplicateBytes;
+        }
+
+        public synchronized long getBodyBytes() {
+            return bodyBytes;
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                bytes = value.substring(0, Math.min(value.length(), 0x3FFF)).getBytes(StandardCharsets.UTF_8);
+            }
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+
+        /**
+         * Finishes the archive and moves it over the previous one. Later calls do nothing.
+         */
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                out.close();
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to finish traffic archive " + file, e);
+            }
+        }
+
+        private static byte[] sha256(byte[] body) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(body);
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TrafficArchiveTest {
+    private static final List<String[]> HEADERS = List.<String[]>of(new String[] {"Content-Type", "text/html"});
+    private static final byte[] PAGE = "<html>page</html>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SCRIPT = "console.log(1);".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripStoresSharedBodiesOnce() {
+        Path file = dir.resolve("traffic.rra");
+        try (TrafficArchive.Writer writer = new TrafficArchive.Writer(file)) {
+            assertTrue(writer.put("GET https://example.test/", 200, HEADERS, PAGE));
+            assertTrue(writer.put("GET https://example.test/index.html", 200, HEADERS, PAGE));
+            assertTrue(writer.put("GET https://example.test/app.js", 404, List.of(), SCRIPT));
+            assertFalse(writer.put("GET https://example.test/", 500, HEADERS, SCRIPT), "First response wins");
+            assertEquals(PAGE.length + SCRIPT.length, writer.getBodyBytes());
+            assertEquals(PAGE.length, writer.getDuplicateBytes());
+        }
+
+        TrafficArchive archive = TrafficArchive.open(file);
+        assertEquals(3, archive.size());
+        TrafficArchive.Response page = archive.get("GET https://example.test/");
+        assertEquals(200, page.getStatus());
+        assertArrayEquals(HEADERS.get(0), page.getHeaders().get(0));
+        assertArrayEquals(PAGE, bytes(archive.body(page)));
+        assertArrayEquals(PAGE, bytes(archive.body(archive.get("GET https://example.test/index.html"))));
+        TrafficArchive.Response script = archive.get("GET https://example.test/app.js");
+        assertEquals(404, script.getStatus());
+        assertArrayEquals(SCRIPT, bytes(archive.body(script)));
+        assertNull(archive.get("GET https://example.test/missing"));
+        assertFalse(Files.exists(TrafficArchive.partialFile(file)));
+    }
+
+    @Test
+    void putAfterCloseIsRejected() {
+        TrafficArchive.Writer writer = new TrafficArchive.Writer(dir.resolve("traffic.rra"));
+        writer.close();
+        assertFalse(writer.put("GET https://example.test/", 200, HEADERS, PAGE));
+        writer.close();
+        assertEquals(0, TrafficArchive.open(dir.resolve("traffic.rra")).size());
+    }
+
+    @Test
+    void truncatedArchiveKeepsCompleteRecords() throws Exception {
+        Path file = dir.resolve("traffic.rra");
+        try (TrafficArchive.Writer writer = new TrafficArchive.Writer(file)) {
+            writer.put("GET https://example.test/", 200, HEADERS, PAGE);
+            writer.put("GET https://example.test/app.js", 200, HEADERS, SCRIPT);
+        }
+        byte[] complete = Files.readAllBytes(file);
+        // Cut into the hash at the end of the last exchange record
+        Files.write(file, Arrays.copyOf(complete, complete.length - 5));
+
+        TrafficArchive archive = TrafficArchive.open(file);
+        assertEquals(1, archive.size());
+        assertArrayEquals(PAGE, bytes(archive.body(archive.get("GET https://example.test/"))));
+    }
+
+    @Test
+    void unfinishedRecordingIsReplayed() {
+        Path file = dir.resolve("traffic.rra");
+        TrafficArchive.Writer writer = new TrafficArchive.Writer(file);
+        try {
+            writer.put("GET https://example.test/", 200, HEADERS, PAGE);
+            // As if the recording JVM was killed here: only the partial file exists
+
+            TrafficArchive archive = TrafficArchive.open(file);
+            assertFalse(Files.exists(file));
+            assertEquals(1, archive.size());
+            assertArrayEquals(PAGE, bytes(archive.body(archive.get("GET https://example.test/"))));
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static byte[] bytes(ByteBuffer body) {
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,546 @@
+package config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process HTTP(S) proxy that records browser traffic into a {@link TrafficArchive} and replays it.
+ * HTTPS is intercepted: CONNECT tunnels are terminated with a self-signed certificate created once with
+ * keytool, which browsers accept because {@link WebDriverConfig} sets acceptInsecureCerts with the proxy.
+ * In record mode requests go to the real server and the responses are archived; text bodies the server
+ * sent uncompressed are stored gzipped. In replay mode responses are served from the memory-mapped
+ * archive and nothing leaves the machine; unrecorded requests get 404. Every connection is served by
+ * a virtual thread, so many sessions can share one proxy.
+ * Requests are keyed by method and URL with the query parameters sorted and those of "proxy.ignore.params"
+ * removed; request bodies are not part of the key.
+ */
+public class TrafficProxy {
+    private static final Logger logger = LoggerFactory.getLogger(TrafficProxy.class);
+    private static final String KEYSTORE_PASSWORD = "changeit";
+    // Hop-by-hop headers and headers the proxy computes itself
+    private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+        "keep-alive", "proxy-authorization", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade",
+        "http2-settings");
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static TrafficProxy shared;
+
+    /**
+     * What the proxy does with requests.
+     */
+    public enum Mode {
+        RECORD, REPLAY
+    }
+
+    private final Mode mode;
+    private final Path archiveFile;
+    private Set<String> ignoredParams = Set.of();
+    private Duration upstreamTimeout = Duration.ofSeconds(30);
+    private Path keystore = Paths.get("target", "proxy-keystore.p12");
+    private ServerSocket serverSocket;
+    private ExecutorService connections;
+    private SSLContext sslContext;
+    private TrafficArchive archive;
+    private TrafficArchive.Writer writer;
+    private HttpClient upstream;
+
+    /**
+     * Creates a proxy.
+     * @param mode Record or replay
+     * @param archiveFile Archive to replay, or to replace with the recording when the proxy stops
+     */
+    public TrafficProxy(Mode mode, Path archiveFile) {
+        this.mode = mode;
+        this.archiveFile = archiveFile;
+    }
+
+    /**
+     * Gets the proxy configured by "proxy.mode" (off, record or replay), started on first use
+     * and stopped at shutdown with {@link #stopShared()}.
+     * @return Running proxy, or empty when the mode is off
+     */
+    public static synchronized Optional<TrafficProxy> shared() {
+        String mode = TestConfig.getProperty("proxy.mode", "off").trim().toUpperCase(Locale.ROOT);
+        if ("OFF".equals(mode) || mode.isEmpty()) {
+            return Optional.empty();
+        }
+        if (shared == null) {
+            Path archive = Paths.get(TestConfig.getProperty("proxy.archive.dir", "src/test/recordings"))
+                .resolve("traffic-" + TestConfig.getEnvironment() + ".rra");
+            String ignored = TestConfig.getProperty("proxy.ignore.params", "");
+            shared = new TrafficProxy(Mode.valueOf(mode), archive)
+                .withIgnoredParams(Arrays.stream(ignored.split(",")).map(String::trim)
+                    .filter(param -> !param.isEmpty()).collect(Collectors.toSet()))
+                .withUpstreamTimeout(Duration.ofSeconds(TestConfig.getLongProperty("proxy.upstream.timeout.seconds", 30)))
+                .withKeystore(Paths.get(TestConfig.getProperty("proxy.keystore", "target/proxy-keystore.p12")))
+                .start();
+        }
+        return Optional.of(shared);
+    }
+
+    /**
+     * Stops the proxy of {@link #shared()} if it was started. Called by the shutdown hook of
+     * {@link WebDriverConfig} once the browsers are gone, so no request is cut off mid-recording.
+     */
+    static synchronized void stopShared() {
+        if (shared != null) {
+            shared.stop();
+        }
+    }
+
+    /**
+     * Leaves query parameters that change on every visit, like cache busters, out of the request key.
+     * @param ignoredParams Parameter names
+     * @return This proxy
+     */
+    public TrafficProxy withIgnoredParams(Set<String> ignoredParams) {
+        this.ignoredParams = ignoredParams;
+        return this;
+    }
+
+    public TrafficProxy withUpstreamTimeout(Duration upstreamTimeout) {
+        this.upstreamTimeout = upstreamTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the keystore of the interception certificate; it is created with keytool when missing.
+     * @param keystore PKCS12 keystore path
+     * @return This proxy
+     */
+    public TrafficProxy withKeystore(Path keystore) {
+        this.keystore = keystore;
+        return this;
+    }
+
+    /**
+     * Starts the proxy on a free loopback port.
+     * @return This proxy
+     */
+    public TrafficProxy start() {
+        sslContext = createSslContext();
+        if (mode == Mode.RECORD) {
+            writer = new TrafficArchive.Writer(archiveFile);
+            upstream = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(upstreamTimeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        } else {
+            archive = TrafficArchive.open(archiveFile);
+            if (archive.size() == 0) {
+                logger.warn("Traffic archive {} is empty or missing; every request will get 404", archiveFile);
+            }
+        }
+        try {
+            serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start traffic proxy", e);
+        }
+        connections = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("traffic-proxy-", 0).factory());
+        Thread acceptor = new Thread(this::acceptConnections, "traffic-proxy-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Traffic proxy on {} in {} mode with archive {}{}", getAddress(), mode, archiveFile,
+            archive == null ? "" : " (" + archive.size() + " responses)");
+        return this;
+    }
+
+    /**
+     * Gets the address browsers use as HTTP and SSL proxy.
+     * @return host:port
+     */
+    public String getAddress() {
+        return serverSocket.getInetAddress().getHostAddress() + ":" + serverSocket.getLocalPort();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Stops accepting connections and, in record mode, finishes the archive.
+     */
+    public synchronized void stop() {
+        if (serverSocket == null || serverSocket.isClosed()) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close traffic proxy: {}", e.getMessage());
+        }
+        connections.shutdownNow();
+        if (writer != null) {
+            writer.close();
+            logger.info("Recorded {} response(s) to {}: {} KB of bodies, {} KB shared between responses",
+                writer.size(), archiveFile, writer.getBodyBytes() / 1024, writer.getDuplicateBytes() / 1024);
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warn("Traffic proxy accept failed: {}", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                // Executor shut down while a connection was being accepted
+                return;
+            }
+        }
+    }
+
+    /**
+     * Serves one browser connection: plain HTTP requests in absolute form, or a CONNECT tunnel
+     * that is terminated here and then carries origin-form requests.
+     */
+    private void serve(Socket socket) {
+        try (Socket client = socket) {
+            client.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(client.getInputStream());
+            OutputStream out = new BufferedOutputStream(client.getOutputStream());
+            Request first = Request.read(in);
+            if (first == null) {
+                return;
+            }
+            if (!"CONNECT".equals(first.method)) {
+                serveRequests(first, in, out, null);
+                return;
+            }
+            // The browser sends its TLS hello only after this answer, so nothing is buffered past the CONNECT
+            out.write("HTTP/1.1 200 Connection Established\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            String authority = first.target.endsWith(":443")
+                ? first.target.substring(0, first.target.length() - 4) : first.target;
+            SSLSocket tls = (SSLSocket) sslContext.getSocketFactory().createSocket(client, null, true);
+            tls.setUseClientMode(false);
+            tls.startHandshake();
+            InputStream tlsIn = new BufferedInputStream(tls.getInputStream());
+            OutputStream tlsOut = new BufferedOutputStream(tls.getOutputStream());
+            serveRequests(Request.read(tlsIn), tlsIn, tlsOut, "https://" + authority);
+        } catch (SocketException | EOFException e) {
+            // The browser closed the connection
+        } catch (IOException e) {
+            logger.debug("Traffic proxy connection failed: {}", e.getMessage());
+        }
+    }
+
+    private void serveRequests(Request request, InputStream in, OutputStream out, String origin) throws IOException {
+        while (request != null) {
+            String url = origin == null ? request.target : origin + request.target;
+            if (request.headers.stream().anyMatch(header -> "upgrade".equalsIgnoreCase(header[0]))) {
+                // WebSockets cannot be recorded as a response
+                writeResponse(out, 501, List.of(), ByteBuffer.allocate(0));
+                return;
+            }
+            if (mode == Mode.RECORD) {
+                record(request, url, out);
+            } else {
+                replay(request, url, out);
+            }
+            out.flush();
+            if ("close".equalsIgnoreCase(request.header("connection"))) {
+                return;
+            }
+            request = Request.read(in);
+        }
+    }
+
+    private void replay(Request request, String url, OutputStream out) throws IOException {
+        TrafficArchive.Response response = archive.get(key(request.method, url));
+        if (response == null) {
+            ActionMetrics.count("TrafficProxy", "replayMisses", 1);
+            logger.debug("Not recorded: {} {}", request.method, url);
+            writeResponse(out, 404, List.<String[]>of(new String[] {"X-Traffic-Proxy", "not recorded"}),
+                ByteBuffer.allocate(0));
+            return;
+        }
+        ActionMetrics.count("TrafficProxy", "replayHits", 1);
+        writeResponse(out, response.getStatus(), response.getHeaders(), archive.body(response));
+    }
+
+    private void record(Request request, String url, OutputStream out) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(upstreamTimeout)
+            .method(request.method, request.body.length == 0
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(request.body));
+        for (String[] header : request.headers) {
+            if (!SKIPPED_HEADERS.contains(header[0].toLowerCase(Locale.ROOT))) {
+                builder.header(header[0], header[1]);
+            }
+        }
+        HttpResponse<byte[]> response;
+        try {
+            response = upstream.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while recording " + url, e);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Recording {} {} failed: {}", request.method, url, e.getMessage());
+            writeResponse(out, 502, List.of(), ByteBuffer.allocate(0));
+            return;
+        }
+        List<String[]> headers = new ArrayList<>();
+        response.headers().map().forEach((name, values) -> {
+            if (!name.startsWith(":") && !SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> headers.add(new String[] {name, value}));
+            }
+        });
+        byte[] body = compact(request, headers, response.body());
+        if (writer.put(key(request.method, url), response.statusCode(), headers, body)) {
+            ActionMetrics.count("TrafficProxy", "recorded", 1);
+        }
+        writeResponse(out, response.statusCode(), headers, ByteBuffer.wrap(body));
+    }
+
+    /**
+     * Gzips text bodies the server sent uncompressed when the browser accepts gzip,
+     * so they take less space in the archive and are served as stored.
+     */
+    private static byte[] compact(Request request, List<String[]> headers, byte[] body) {
+        String accepted = request.header("accept-encoding");
+        String type = headerValue(headers, "content-type");
+        if (body.length < GZIP_MIN_BYTES || headerValue(headers, "content-encoding") != null
+                || accepted == null || !accepted.contains("gzip") || type == null
+                || !(type.startsWith("text/") || type.contains("json") || type.contains("javascript")
+                    || type.contains("xml") || type.contains("svg"))) {
+            return body;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            return body;
+        }
+        headers.add(new String[] {"Content-Encoding", "gzip"});
+        return compressed.toByteArray();
+    }
+
+    private static void writeResponse(OutputStream out, int status, List<String[]> headers, ByteBuffer body)
+            throws IOException {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append(" \r\n");
+        for (String[] header : headers) {
+            head.append(header[0]).append(": ").append(header[1]).append("\r\n");
+        }
+        head.append("Content-Length: ").append(body.remaining()).append("\r\n\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        if (body.hasArray()) {
+            out.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+            return;
+        }
+        byte[] chunk = new byte[Math.min(body.remaining(), 1 << 16)];
+        while (body.hasRemaining()) {
+            int length = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    /**
+     * Builds the archive key of a request: method and URL with sorted query parameters, minus ignored ones.
+     */
+    String key(String method, String url) {
+        int fragment = url.indexOf('#');
+        if (fragment >= 0) {
+            url = url.substring(0, fragment);
+        }
+        int query = url.indexOf('?');
+        if (query < 0) {
+            return method + " " + url;
+        }
+        Set<String> params = new TreeSet<>();
+        for (String param : url.substring(query + 1).split("&")) {
+            String name = param.contains("=") ? param.substring(0, param.indexOf('=')) : param;
+            if (!param.isEmpty() && !ignoredParams.contains(name)) {
+                params.add(param);
+            }
+        }
+        return method + " " + url.substring(0, query) + (params.isEmpty() ? "" : "?" + String.join("&", params));
+    }
+
+    private static String headerValue(List<String[]> headers, String name) {
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) {
+                return header[1];
+            }
+        }
+        return null;
+    }
+
+    private SSLContext createSslContext() {
+        try {
+            if (!Files.exists(keystore)) {
+                generateKeystore();
+            }
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            try (InputStream in = Files.newInputStream(keystore)) {
+                store.load(in, KEYSTORE_PASSWORD.toCharArray());
+            }
+            KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keys.init(store, KEYSTORE_PASSWORD.toCharArray());
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keys.getKeyManagers(), null, null);
+            return context;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new RuntimeException("Failed to load proxy keystore " + keystore, e);
+        }
+    }
+
+    /**
+     * Creates the self-signed interception certificate with the keytool of the running JDK.
+     */
+    private void generateKeystore() throws IOException {
+        Files.createDirectories(keystore.toAbsolutePath().getParent());
+        Path tmp = keystore.resolveSibling(keystore.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        Path keytool = Paths.get(System.getProperty("java.home"), "bin", "keytool");
+        Process process = new ProcessBuilder(keytool.toString(), "-genkeypair", "-alias", "traffic-proxy",
+            "-keyalg", "EC", "-groupname", "secp256r1", "-validity", "3650", "-dname", "CN=Traffic Proxy",
+            "-ext", "SAN=dns:localhost,ip:127.0.0.1", "-storetype", "PKCS12", "-keystore", tmp.toString(),
+            "-storepass", KEYSTORE_PASSWORD, "-keypass", KEYSTORE_PASSWORD)
+            .redirectErrorStream(true)
+            .start();
+        try {
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (!process.waitFor(60, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                throw new IOException("keytool failed: " + output.trim());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running keytool", e);
+        }
+        // Parallel runs may race to create it; the first complete keystore is as good as any
+        try {
+            Files.move(tmp, keystore, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(tmp);
+        }
+        logger.info("Created traffic proxy certificate {}", keystore);
+    }
+
+    /**
+     * HTTP/1.1 request head and body as read from the browser.
+     */
+    private static final class Request {
+        private final String method;
+        private final String target;
+        private final List<String[]> headers;
+        private final byte[] body;
+
+        private Request(String method, String target, List<String[]> headers, byte[] body) {
+            this.method = method;
+            this.target = target;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private String header(String name) {
+            return headerValue(headers, name);
+        }
+
+        /**
+         * Reads the next request of a connection.
+         * @return Request, or null when the connection was closed between requests
+         */
+        private static Request read(InputStream in) throws IOException {
+            String line = readLine(in);
+            while (line != null && line.isEmpty()) {
+                line = readLine(in);
+            }
+            if (line == null) {
+                return null;
+            }
+            String[] parts = line.split(" ");
+            if (parts.length < 3) {
+                throw new IOException("Malformed request line: " + line);
+            }
+            List<String[]> headers = new ArrayList<>();
+            for (String header = readLine(in); header != null && !header.isEmpty(); header = readLine(in)) {
+                int colon = header.indexOf(':');
+                if (colon > 0) {
+                    headers.add(new String[] {header.substring(0, colon).trim(), header.substring(colon + 1).trim()});
+                }
+            }
+            String length = headerValue(headers, "content-length");
+            byte[] body;
+            if ("chunked".equalsIgnoreCase(headerValue(headers, "transfer-encoding"))) {
+                body = readChunked(in);
+            } else {
+                body = length == null ? new byte[0] : in.readNBytes(Integer.parseInt(length.trim()));
+            }
+            return new Request(parts[0], parts[1], headers, body);
+        }
+
+        private static byte[] readChunked(InputStream in) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            for (String size = readLine(in); size != null; size = readLine(in)) {
+                int length = Integer.parseInt(size.split(";")[0].trim(), 16);
+                if (length == 0) {
+                    // Trailers up to the empty line
+                    for (String trailer = readLine(in); trailer != null && !trailer.isEmpty(); trailer = readLine(in)) {
+                        // Ignored
+                    }
+                    break;
+                }
+                body.write(in.readNBytes(length));
+                readLine(in);
+            }
+            return body.toByteArray();
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int b = in.read(); b != '\n'; b = in.read()) {
+                if (b < 0) {
+                    return line.length() == 0 ? null : line.toString();
+                }
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            return line.toString();
+        }
+    }
+}
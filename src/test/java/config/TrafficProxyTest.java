@@ -0,0 +1,36 @@
+package config;
+
+import org.junit.jupiter.api.Test;
+import java.nio.file.Paths;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TrafficProxyTest {
+    private final TrafficProxy proxy = new TrafficProxy(TrafficProxy.Mode.REPLAY, Paths.get("unused.rra"))
+        .withIgnoredParams(Set.of("cb", "_"));
+
+    @Test
+    void keyIgnoresParameterOrder() {
+        assertEquals(proxy.key("GET", "https://example.test/search?q=selenium&hl=en"),
+            proxy.key("GET", "https://example.test/search?hl=en&q=selenium"));
+    }
+
+    @Test
+    void keyLeavesOutIgnoredParams() {
+        assertEquals("GET https://example.test/app.js?v=2",
+            proxy.key("GET", "https://example.test/app.js?cb=1697040000&v=2&_=17"));
+        assertEquals("GET https://example.test/app.js", proxy.key("GET", "https://example.test/app.js?cb=1"));
+    }
+
+    @Test
+    void keyLeavesOutFragmentAndEmptyQuery() {
+        assertEquals("GET https://example.test/page", proxy.key("GET", "https://example.test/page?#top"));
+        assertEquals("GET https://example.test/page?a=1", proxy.key("GET", "https://example.test/page?a=1#top"));
+    }
+
+    @Test
+    void keySeparatesMethods() {
+        assertEquals("POST https://example.test/api", proxy.key("POST", "https://example.test/api"));
+    }
+}
@@ -0,0 +1,38 @@
+package config;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the UseCase9 fixtures a test class or method needs.
+ * The records are requested from {@link FixtureProvisioner} before the class starts,
+ * and a {@link Fixture} test parameter is resolved with a claimed record of the declared type.
+ * <pre>
+ * &#64;UsesFixtures(value = FixtureType.ACTIVE_MP_ACTIVE_CONTRACT, count = 3)
+ * public class ActiveMPWithActiveContract extends BaseTest {
+ *     &#64;Test
+ *     void showsContract(Fixture fixture) { ... }
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@ExtendWith(FixtureExtension.class)
+public @interface UsesFixtures {
+    /**
+     * Fixture types the tests claim.
+     * @return Fixture types
+     */
+    FixtureType[] value();
+
+    /**
+     * Records of each type claimed by the class, created ahead of the first test.
+     * @return Records per type
+     */
+    int count() default 1;
+}
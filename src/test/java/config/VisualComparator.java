@@ -0,0 +1,414 @@
+package config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Compares screenshots with stored baselines on decoded pixel buffers.
+ * Both images are decoded once into an int[] of ARGB pixels, cut into square tiles of
+ * "visual.tile.size" pixels and each tile is hashed; only tiles whose hashes differ are compared
+ * pixel by pixel, with a per-channel tolerance of "visual.pixel.tolerance". Tiles are processed in
+ * parallel on the common fork-join pool. Masked rectangles (dynamic content) count as equal.
+ * Baselines are decoded and hashed once per JVM, per tile size and masks.
+ * A diff image is written only when the changed share of pixels exceeds "visual.threshold.percent".
+ * Baselines are recorded from the screenshot only with "visual.update=true"; a missing baseline fails
+ * the check and the screenshot is saved for review.
+ */
+public class VisualComparator {
+    private static final Logger logger = LoggerFactory.getLogger(VisualComparator.class);
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int DIFF_COLOR = 0xFFFF0000;
+    // Hashes of a baseline for this many tile size and mask combinations; masks move with dynamic content
+    private static final int MAX_TILE_HASHES = 16;
+    // Decoded baselines are reused by every test that checks the same page
+    private static final Map<Path, Pixels> baselines = new ConcurrentHashMap<>();
+
+    private VisualComparator() {
+    }
+
+    /**
+     * Compares a screenshot with its baseline.
+     * @param png Screenshot as PNG
+     * @param name Baseline name, e.g. "GooglePage_home"
+     * @param browser Browser of the screenshot; every browser has its own baselines
+     * @param masks Rectangles in screenshot pixels to ignore
+     * @return Result of the comparison
+     */
+    public static Result compare(byte[] png, String name, Browser browser, List<Rectangle> masks) {
+        long start = System.nanoTime();
+        Path baselineFile = getBaselineFile(name, browser);
+        Pixels actual = decode(png);
+        if (TestConfig.getBooleanProperty("visual.update", false)) {
+            storeBaseline(baselineFile, png, actual);
+            return new Result(name, 0, 0, 0, null, true, false);
+        }
+        if (!Files.exists(baselineFile)) {
+            Path screenshot = ScreenshotService.saveRecording(name + "_visual-new", browser, "png", () -> png);
+            logger.warn("Visual check {}: no baseline at {}; review {} and record it with -Dvisual.update=true",
+                name, baselineFile.toAbsolutePath(), screenshot.toAbsolutePath());
+            return new Result(name, 100, 0, 0, screenshot, false, true);
+        }
+        Pixels expected = baselines.computeIfAbsent(baselineFile, VisualComparator::readBaseline);
+        Result result;
+        if (expected.width != actual.width || expected.height != actual.height) {
+            result = new Result(name, 100, 0, 0, writeDiff(name, browser, actual, null, null, 0), false, false);
+            logger.warn("Visual check {}: size {}x{} differs from baseline {}x{}", name,
+                actual.width, actual.height, expected.width, expected.height);
+        } else {
+            result = diff(name, browser, expected, actual, masks);
+        }
+        ActionMetrics.record("VisualComparator", "compare", name, ActionMetrics.PHASE_COMMAND, System.nanoTime() - start);
+        return result;
+    }
+
+    private static Result diff(String name, Browser browser, Pixels expected, Pixels actual, List<Rectangle> masks) {
+        int tileSize = Math.max(8, TestConfig.getIntProperty("visual.tile.size", 32));
+        int tolerance = TestConfig.getIntProperty("visual.pixel.tolerance", 16);
+        int columns = (actual.width + tileSize - 1) / tileSize;
+        int rows = (actual.height + tileSize - 1) / tileSize;
+        AtomicLong changedPixels = new AtomicLong();
+        AtomicLong maskedPixels = new AtomicLong();
+        AtomicInteger changedTiles = new AtomicInteger();
+        long[] expectedHashes = expected.tileHashes(tileSize, masks);
+        IntStream.range(0, columns * rows).parallel().forEach(tile -> {
+            Rectangle bounds = tileBounds(actual, tileSize, tile);
+            List<Rectangle> tileMasks = intersecting(bounds, masks);
+            if (!tileMasks.isEmpty()) {
+                maskedPixels.addAndGet(maskedArea(bounds, tileMasks));
+            }
+            if (expectedHashes[tile] == hash(actual, bounds, tileMasks)) {
+                return;
+            }
+            long changed = countChanged(expected, actual, bounds, tileMasks, tolerance);
+            if (changed > 0) {
+                changedPixels.addAndGet(changed);
+                changedTiles.incrementAndGet();
+            }
+        });
+        long comparable = (long) actual.width * actual.height - maskedPixels.get();
+        double percent = comparable <= 0 ? 0 : changedPixels.get() * 100.0 / comparable;
+        double threshold = Double.parseDouble(TestConfig.getProperty("visual.threshold.percent", "0.1"));
+        Path diffFile = null;
+        if (percent > threshold) {
+            diffFile = writeDiff(name, browser, actual, expected, masks, tolerance);
+            logger.warn("Visual check {}: {}% of pixels changed in {} tile(s), diff at {}", name,
+                String.format("%.3f", percent), changedTiles.get(), diffFile.toAbsolutePath());
+        } else if (changedTiles.get() > 0) {
+            logger.debug("Visual check {}: {}% of pixels changed, within the threshold", name, percent);
+        }
+        return new Result(name, percent, changedTiles.get(), columns * rows, diffFile, false, false);
+    }
+
+    private static Rectangle tileBounds(Pixels image, int tileSize, int tile) {
+        int columns = (image.width + tileSize - 1) / tileSize;
+        int x = (tile % columns) * tileSize;
+        int y = (tile / columns) * tileSize;
+        return new Rectangle(x, y, Math.min(tileSize, image.width - x), Math.min(tileSize, image.height - y));
+    }
+
+    /**
+     * FNV-1a over the pixels of a tile; masked pixels hash as transparent black in both images.
+     */
+    private static long hash(Pixels image, Rectangle tile, List<Rectangle> masks) {
+        long hash = FNV_OFFSET;
+        int[] data = image.data;
+        for (int y = tile.y; y < tile.y + tile.height; y++) {
+            int row = y * image.width;
+            for (int x = tile.x; x < tile.x + tile.width; x++) {
+                int pixel = masks.isEmpty() || !contains(masks, x, y) ? data[row + x] : 0;
+                hash = (hash ^ pixel) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    private static long countChanged(Pixels expected, Pixels actual, Rectangle tile, List<Rectangle> masks,
+                                     int tolerance) {
+        long changed = 0;
+        for (int y = tile.y; y < tile.y + tile.height; y++) {
+            int row = y * actual.width;
+            for (int x = tile.x; x < tile.x + tile.width; x++) {
+                if (differs(expected.data[row + x], actual.data[row + x], tolerance)
+                        && (masks.isEmpty() || !contains(masks, x, y))) {
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static boolean differs(int expected, int actual, int tolerance) {
+        if (expected == actual) {
+            return false;
+        }
+        return Math.abs(((expected >> 16) & 0xFF) - ((actual >> 16) & 0xFF)) > tolerance
+            || Math.abs(((expected >> 8) & 0xFF) - ((actual >> 8) & 0xFF)) > tolerance
+            || Math.abs((expected & 0xFF) - (actual & 0xFF)) > tolerance;
+    }
+
+    private static List<Rectangle> intersecting(Rectangle tile, List<Rectangle> masks) {
+        if (masks.isEmpty()) {
+            return masks;
+        }
+        List<Rectangle> result = new ArrayList<>(1);
+        for (Rectangle mask : masks) {
+            if (mask.contains(tile)) {
+                // A fully masked tile compares equal without looking at its pixels
+                return List.of(tile);
+            }
+            if (mask.intersects(tile)) {
+                result.add(mask);
+            }
+        }
+        return result;
+    }
+
+    private static boolean contains(List<Rectangle> masks, int x, int y) {
+        for (Rectangle mask : masks) {
+            if (mask.contains(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long maskedArea(Rectangle tile, List<Rectangle> masks) {
+        long area = 0;
+        for (int y = tile.y; y < tile.y + tile.height; y++) {
+            for (int x = tile.x; x < tile.x + tile.width; x++) {
+                if (contains(masks, x, y)) {
+                    area++;
+                }
+            }
+        }
+        return area;
+    }
+
+    /**
+     * Writes the screenshot with changed pixels in red and masks darkened, next to the screenshots.
+     */
+    private static Path writeDiff(String name, Browser browser, Pixels actual, Pixels expected,
+                                  List<Rectangle> masks, int tolerance) {
+        return ScreenshotService.saveRecording(name + "_visual-diff", browser, "png", () -> {
+            BufferedImage image = new BufferedImage(actual.width, actual.height, BufferedImage.TYPE_INT_ARGB);
+            int[] out = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            System.arraycopy(actual.data, 0, out, 0, out.length);
+            if (expected != null) {
+                for (int i = 0; i < out.length; i++) {
+                    int x = i % actual.width;
+                    int y = i / actual.width;
+                    if (!masks.isEmpty() && contains(masks, x, y)) {
+                        out[i] = (out[i] >>> 2) & 0x3F3F3F3F | 0xFF000000;
+                    } else if (differs(expected.data[i], actual.data[i], tolerance)) {
+                        out[i] = DIFF_COLOR;
+                    }
+                }
+            }
+            return encode(image);
+        });
+    }
+
+    private static void storeBaseline(Path file, byte[] png, Pixels pixels) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(tmp, png);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            baselines.put(file, pixels);
+            logger.info("Recorded visual baseline {}", file);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store visual baseline " + file, e);
+        }
+    }
+
+    private static Pixels readBaseline(Path file) {
+        try {
+            return decode(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read visual baseline " + file, e);
+        }
+    }
+
+    /**
+     * Decodes a PNG into one ARGB int[], reading the raster directly for the layouts PNG decoding produces.
+     */
+    static Pixels decode(byte[] png) {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(png));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to decode screenshot", e);
+        }
+        if (image == null) {
+            throw new RuntimeException("Screenshot is not a readable image");
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] data = new int[width * height];
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_INT_RGB:
+                System.arraycopy(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0, data, 0, data.length);
+                if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+                    for (int i = 0; i < data.length; i++) {
+                        data[i] |= 0xFF000000;
+                    }
+                }
+                break;
+            case BufferedImage.TYPE_3BYTE_BGR: {
+                byte[] bytes = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                for (int i = 0, b = 0; i < data.length; i++, b += 3) {
+                    data[i] = 0xFF000000 | (bytes[b + 2] & 0xFF) << 16 | (bytes[b + 1] & 0xFF) << 8 | (bytes[b] & 0xFF);
+                }
+                break;
+            }
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+                byte[] bytes = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                for (int i = 0, b = 0; i < data.length; i++, b += 4) {
+                    data[i] = (bytes[b] & 0xFF) << 24 | (bytes[b + 3] & 0xFF) << 16
+                        | (bytes[b + 2] & 0xFF) << 8 | (bytes[b + 1] & 0xFF);
+                }
+                break;
+            }
+            default:
+                image.getRGB(0, 0, width, height, data, 0, width);
+        }
+        return new Pixels(width, height, data);
+    }
+
+    private static byte[] encode(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode visual diff", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static Path getBaselineFile(String name, Browser browser) {
+        String file = (name + "_" + BrowserProfile.active().getName()).replaceAll("[^A-Za-z0-9._-]", "_") + ".png";
+        return Paths.get(TestConfig.getProperty("visual.baseline.dir", "src/test/visual-baselines"))
+            .resolve(browser.getValue()).resolve(file);
+    }
+
+    static final class Pixels {
+        private final int width;
+        private final int height;
+        private final int[] data;
+        private final Map<String, long[]> tileHashes = new ConcurrentHashMap<>();
+
+        private Pixels(int width, int height, int[] data) {
+            this.width = width;
+            this.height = height;
+            this.data = data;
+        }
+
+        /**
+         * Hashes of all tiles, computed once per tile size and masks.
+         */
+        long[] tileHashes(int tileSize, List<Rectangle> masks) {
+            String key = tileSize + ":" + masks;
+            long[] hashes = tileHashes.get(key);
+            if (hashes == null) {
+                if (tileHashes.size() >= MAX_TILE_HASHES) {
+                    tileHashes.clear();
+                }
+                int tiles = ((width + tileSize - 1) / tileSize) * ((height + tileSize - 1) / tileSize);
+                hashes = new long[tiles];
+                long[] result = hashes;
+                IntStream.range(0, tiles).parallel().forEach(tile -> {
+                    Rectangle bounds = tileBounds(this, tileSize, tile);
+                    result[tile] = hash(this, bounds, intersecting(bounds, masks));
+                });
+                tileHashes.put(key, hashes);
+            }
+            return hashes;
+        }
+    }
+
+    /**
+     * Outcome of one visual check.
+     */
+    public static final class Result {
+        private final String name;
+        private final double mismatchPercent;
+        private final int changedTiles;
+        private final int tiles;
+        private final Path diffFile;
+        private final boolean baselineRecorded;
+        private final boolean baselineMissing;
+
+        private Result(String name, double mismatchPercent, int changedTiles, int tiles, Path diffFile,
+                       boolean baselineRecorded, boolean baselineMissing) {
+            this.name = name;
+            this.mismatchPercent = mismatchPercent;
+            this.changedTiles = changedTiles;
+            this.tiles = tiles;
+            this.diffFile = diffFile;
+            this.baselineRecorded = baselineRecorded;
+            this.baselineMissing = baselineMissing;
+        }
+
+        public double getMismatchPercent() {
+            return mismatchPercent;
+        }
+
+        public int getChangedTiles() {
+            return changedTiles;
+        }
+
+        public int getTiles() {
+            return tiles;
+        }
+
+        /**
+         * Gets the diff image, written only when the mismatch crossed the threshold,
+         * or the screenshot when the baseline is missing.
+         * @return Path of the diff, or null
+         */
+        public Path getDiffFile() {
+            return diffFile;
+        }
+
+        public boolean isBaselineRecorded() {
+            return baselineRecorded;
+        }
+
+        public boolean isBaselineMissing() {
+            return baselineMissing;
+        }
+
+        public boolean isMatch() {
+            return diffFile == null;
+        }
+
+        @Override
+        public String toString() {
+            if (baselineMissing) {
+                return name + ": no baseline, record it with -Dvisual.update=true";
+            }
+            return String.format("%s: %.3f%% changed in %d of %d tiles", name, mismatchPercent, changedTiles, tiles);
+        }
+    }
+}
@@ -1,106 +1,298 @@
 package config;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.Proxy;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.remote.AbstractDriverOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Manages WebDriver instances and browser configuration.
- * Provides singleton pattern for WebDriver management.
+ * Each thread owns at most one WebDriver session, so test classes can run in parallel.
+ * Sessions are borrowed from a per-browser {@link DriverPool} and reset between tests.
+ * With "execution.mode=remote" sessions are created on Selenium Grid through {@link GridScheduler}.
  */
 public class WebDriverConfig {
-    private static WebDriver driver;
+    private static final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    private static final ThreadLocal<Browser> driverBrowser = new ThreadLocal<>();
+    private static final Map<WebDriver, Long> lastUsedTimes = new ConcurrentHashMap<>();
+    private static final Map<Browser, DriverPool> pools = new ConcurrentHashMap<>();
+    private static GridScheduler gridScheduler;
     private static final Logger logger = LoggerFactory.getLogger(WebDriverConfig.class);
-    private static final long DRIVER_TIMEOUT_MINUTES = 30;
-    private static Timer cleanupTimer;
-    private static long lastUsedTime;
+    private static ScheduledFuture<?> idleCleanup;
 
     static {
         // Add shutdown hook to cleanup any remaining drivers
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info("Running shutdown hook to cleanup WebDriver instances");
-            quitDriver();
+            quitAllDrivers();
+            TrafficProxy.stopShared();
         }));
+        scheduleCleanup();
+        warmUpPools();
     }
 
     /**
-     * Gets or creates WebDriver instance.
+     * Gets or creates the WebDriver instance of the current thread.
+     * Uses the browser already bound to this thread, or the default browser.
      * @return WebDriver instance
      */
     public static WebDriver getDriver() {
-        if (driver == null) {
-            String browser = System.getProperty("browser", "chrome");
-            logger.info("Initializing {} browser", browser);
-            createDriver(browser);
-            scheduleCleanup();
+        Browser browser = driverBrowser.get();
+        return getDriver(browser != null ? browser : getDefaultBrowser());
+    }
+
+    /**
+     * Gets or creates the WebDriver instance of the current thread for the given browser.
+     * A session of a different browser held by this thread is quit first.
+     * @param browser Browser the session must run
+     * @return WebDriver instance
+     */
+    public static WebDriver getDriver(Browser browser) {
+        WebDriver current = driver.get();
+        if (current != null && !lastUsedTimes.containsKey(current)) {
+            quitDriver();
+            current = null;
+        } else if (current != null && browser != driverBrowser.get()) {
+            releaseDriver();
+            current = null;
         }
-        updateLastUsedTime();
-        return driver;
+        if (current == null) {
+            DriverPool pool = getPool(browser);
+            current = ActionMetrics.time("WebDriverConfig", "borrowDriver", browser, ActionMetrics.PHASE_WAIT,
+                pool::borrow);
+            driver.set(current);
+            driverBrowser.set(browser);
+        }
+        lastUsedTimes.put(current, System.currentTimeMillis());
+        return current;
     }
 
-    private static void createDriver(String browser) {
-        switch (browser.toLowerCase()) {
-            case "chrome":
-                WebDriverManager.chromedriver().setup();
-                driver = new ChromeDriver(new ChromeOptions());
+    /**
+     * Gets the WebDriver instance of the current thread without creating one.
+     * @return WebDriver instance, or null if this thread has no session
+     */
+    public static WebDriver getCurrentDriver() {
+        return driver.get();
+    }
+
+    /**
+     * Gets the browser of the current thread's session.
+     * @return Browser enum value, or null if this thread has no session
+     */
+    public static Browser getBrowser() {
+        return driverBrowser.get();
+    }
+
+    /**
+     * Gets the browser used when a test does not choose one.
+     * Read from the "browser" system property, defaulting to Chrome.
+     * @return Browser enum value
+     */
+    public static Browser getDefaultBrowser() {
+        return Browser.valueOf(System.getProperty("browser", "chrome").toUpperCase());
+    }
+
+    /**
+     * Starts the pools listed in the "pool.warmup" property, e.g. "chrome,edge",
+     * so their minimum sessions launch before the first test asks for one.
+     */
+    private static void warmUpPools() {
+        for (String name : TestConfig.getProperty("pool.warmup", "").split(",")) {
+            if (!name.isBlank()) {
+                getPool(Browser.valueOf(name.trim().toUpperCase()));
+            }
+        }
+    }
+
+    private static DriverPool getPool(Browser browser) {
+        return pools.computeIfAbsent(browser, b -> new DriverPool(b, sessionFactory(b),
+            TestConfig.getIntProperty("pool.min", 1),
+            TestConfig.getIntProperty("pool.max", 4),
+            TestConfig.getLongProperty("pool.borrow.timeout", 300)));
+    }
+
+    /**
+     * Creates new sessions the way the pools do, for engines that manage their own sessions like {@link LoadRunner}.
+     * @param browser Browser the sessions run
+     * @return Factory of new, timed sessions
+     */
+    public static Supplier<WebDriver> sessionFactory(Browser browser) {
+        return () -> ActionMetrics.time("WebDriverConfig", "createDriver", browser, ActionMetrics.PHASE_COMMAND,
+            () -> createDriver(browser));
+    }
+
+    private static WebDriver createDriver(Browser browser) {
+        BrowserProfile profile = BrowserProfile.active();
+        logger.info("Initializing {} browser with profile {}", browser, profile);
+        WebDriver newDriver;
+        if (isRemote()) {
+            newDriver = getGridScheduler().createSession(createOptions(browser));
+        } else {
+            DriverBinaryCache.setup(browser);
+            MutableCapabilities options = createOptions(browser);
+            Path cacheDir = NetworkControl.leaseCacheDir(browser).orElse(null);
+            if (cacheDir != null) {
+                ((ChromiumOptions<?>) options).addArguments("--disk-cache-dir=" + cacheDir.toAbsolutePath());
+            }
+            try {
+                switch (browser) {
+                    case CHROME:
+                        newDriver = new ChromeDriver((ChromeOptions) options);
+                        break;
+                    case FIREFOX:
+                        newDriver = new FirefoxDriver((FirefoxOptions) options);
+                        break;
+                    case EDGE:
+                        newDriver = new EdgeDriver((EdgeOptions) options);
+                        break;
+                    default:
+                        logger.error("Unsupported browser: {}", browser);
+                        throw new RuntimeException("Unsupported browser: " + browser);
+                }
+            } catch (RuntimeException e) {
+                if (cacheDir != null) {
+                    NetworkControl.returnCacheDir(browser, cacheDir);
+                }
+                throw e;
+            }
+            if (cacheDir != null) {
+                NetworkControl.attach(newDriver, browser, cacheDir);
+            }
+        }
+        try {
+            if (profile.isMaximized()) {
+                newDriver.manage().window().maximize();
+            }
+        } catch (RuntimeException e) {
+            // The caller never gets the session, so nobody else would quit it, free its Grid slot or its cache directory
+            try {
+                newDriver.quit();
+            } catch (RuntimeException quitFailure) {
+                e.addSuppressed(quitFailure);
+            } finally {
+                NetworkControl.forget(newDriver);
+            }
+            throw e;
+        }
+        logger.info("Browser initialized successfully");
+        return newDriver;
+    }
+
+    private static MutableCapabilities createOptions(Browser browser) {
+        MutableCapabilities options;
+        switch (browser) {
+            case CHROME:
+                options = new ChromeOptions();
                 break;
-            case "firefox":
-                WebDriverManager.firefoxdriver().setup();
-                driver = new FirefoxDriver(new FirefoxOptions());
+            case FIREFOX:
+                options = new FirefoxOptions();
                 break;
-            case "edge":
-                WebDriverManager.edgedriver().setup();
-                driver = new EdgeDriver(new EdgeOptions());
+            case EDGE:
+                options = new EdgeOptions();
                 break;
             default:
                 logger.error("Unsupported browser: {}", browser);
                 throw new RuntimeException("Unsupported browser: " + browser);
         }
-        driver.manage().window().maximize();
-        logger.info("Browser initialized successfully");
+        BrowserProfile.active().apply(browser, options);
+        // Page objects wait for their own readiness, see PageReadiness
+        AbstractDriverOptions<?> driverOptions = (AbstractDriverOptions<?>) options;
+        driverOptions.setPageLoadStrategy(PageLoadStrategy.fromString(
+            TestConfig.getProperty("page.load.strategy", "eager").toLowerCase()));
+        driverOptions.setPageLoadTimeout(Duration.ofSeconds(TestConfig.getLongProperty("timeout.pageload", 30)));
+        TrafficProxy.shared().ifPresent(proxy -> {
+            if (isRemote()) {
+                // Grid nodes cannot reach the loopback address of this machine
+                logger.warn("Traffic proxy is not used for remote sessions");
+                return;
+            }
+            driverOptions.setProxy(new Proxy().setHttpProxy(proxy.getAddress()).setSslProxy(proxy.getAddress()));
+            // The proxy terminates HTTPS with its own self-signed certificate
+            driverOptions.setAcceptInsecureCerts(true);
+        });
+        return options;
     }
 
-    private static void updateLastUsedTime() {
-        lastUsedTime = System.currentTimeMillis();
+    /**
+     * Checks whether sessions run on Selenium Grid ("execution.mode=remote") instead of local drivers.
+     * @return true in remote mode
+     */
+    public static boolean isRemote() {
+        return "remote".equalsIgnoreCase(TestConfig.getProperty("execution.mode", "local"));
     }
 
-    private static void scheduleCleanup() {
-        if (cleanupTimer != null) {
-            cleanupTimer.cancel();
+    private static synchronized GridScheduler getGridScheduler() {
+        if (gridScheduler == null) {
+            gridScheduler = GridScheduler.fromConfig();
         }
-        cleanupTimer = new Timer(true);
-        cleanupTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                long idleTime = System.currentTimeMillis() - lastUsedTime;
-                if (idleTime >= TimeUnit.MINUTES.toMillis(DRIVER_TIMEOUT_MINUTES)) {
-                    logger.warn("Driver idle for {} minutes. Cleaning up...", 
+        return gridScheduler;
+    }
+
+    /**
+     * Quits sessions a thread kept borrowed for longer than "session.idle.timeout.minutes",
+     * e.g. after a test forgot to release its driver. Runs on the {@link SessionHealthMonitor} thread.
+     */
+    private static void scheduleCleanup() {
+        long timeoutMillis = TimeUnit.MINUTES.toMillis(TestConfig.getLongProperty("session.idle.timeout.minutes", 30));
+        idleCleanup = SessionHealthMonitor.schedule(() -> {
+            long now = System.currentTimeMillis();
+            lastUsedTimes.forEach((idleDriver, lastUsedTime) -> {
+                long idleTime = now - lastUsedTime;
+                if (idleTime >= timeoutMillis && lastUsedTimes.remove(idleDriver, lastUsedTime)) {
+                    logger.warn("Driver idle for {} minutes. Cleaning up...",
                         TimeUnit.MILLISECONDS.toMinutes(idleTime));
-                    quitDriver();
+                    pools.values().forEach(pool -> pool.invalidate(idleDriver));
                 }
-            }
-        }, TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(1));
+            });
+        }, 1, TimeUnit.MINUTES);
     }
 
-    public static void quitDriver() {
-        if (cleanupTimer != null) {
-            cleanupTimer.cancel();
-            cleanupTimer = null;
+    /**
+     * Resets the WebDriver instance of the current thread and returns it to its pool.
+     */
+    public static void releaseDriver() {
+        WebDriver current = driver.get();
+        Browser browser = driverBrowser.get();
+        driver.remove();
+        driverBrowser.remove();
+        if (current != null && lastUsedTimes.remove(current) != null) {
+            getPool(browser).release(current);
         }
-        if (driver != null) {
-            logger.info("Quitting browser");
-            driver.quit();
-            driver = null;
+    }
+
+    /**
+     * Quits the WebDriver instance of the current thread instead of returning it to its pool.
+     */
+    public static void quitDriver() {
+        WebDriver current = driver.get();
+        Browser browser = driverBrowser.get();
+        driver.remove();
+        driverBrowser.remove();
+        if (current != null && lastUsedTimes.remove(current) != null) {
+            getPool(browser).invalidate(current);
         }
     }
-} 
\ No newline at end of file
+
+    private static void quitAllDrivers() {
+        idleCleanup.cancel(false);
+        lastUsedTimes.clear();
+        pools.values().forEach(DriverPool::shutdown);
+    }
+}
@@ -3,9 +3,14 @@ package pageobjects;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import config.BasePage;
+import config.NetworkPolicy;
+import config.PageReadiness;
+import config.PerformanceSample;
+import config.TestConfig;
 import org.junit.jupiter.api.Assertions;
 import org.openqa.selenium.Keys;
 
+@NetworkPolicy(countRequests = true)
 public class GooglePage extends BasePage {
     private final By searchBox = By.name("q");
     private final By searchButton = By.name("btnK");
@@ -22,6 +27,16 @@ public class GooglePage extends BasePage {
         super(driver);
     }
 
+    @Override
+    protected PageReadiness readiness() {
+        return PageReadiness.domContentLoaded().present(searchBox);
+    }
+
+    public GooglePage open() {
+        navigateTo(TestConfig.getProperty("base.url", "https://www.google.com"));
+        return this;
+    }
+
     public GooglePage searchFor(String text) {
         sendTestToSearchBox(text);
         sendKeys(searchButton, Keys.ENTER);
@@ -34,6 +49,11 @@ public class GooglePage extends BasePage {
         return this;
     }
 
+    public GooglePage verifyLoadUnder(long millis) {
+        verifyBudget(PerformanceSample.READY, millis);
+        return this;
+    }
+
     public GooglePage verifySearchResults(String text) {
         Assertions.assertTrue(driver.getTitle().contains(text), 
         "Search results page title does not contain the expected text");
@@ -0,0 +1,60 @@
+package tests;
+
+import config.Browser;
+import config.FakeWebDriverServer;
+import config.LoadReport;
+import config.LoadRunner;
+import config.TestConfig;
+import config.WebDriverConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import pageobjects.GooglePage;
+import java.util.function.Supplier;
+
+/**
+ * The search journey of {@link GoogleSearchTest} as concurrent synthetic users, run with -Pload.
+ * With "load.stand.in=true" the users drive {@link FakeWebDriverServer} instead of browsers,
+ * which checks the load engine itself without an app or browsers.
+ */
+@Tag("load")
+public class GoogleSearchLoadTest {
+
+    @Test
+    void searchUnderLoad() {
+        String query = "Selenium WebDriver";
+        boolean standIn = TestConfig.getBooleanProperty("load.stand.in", true);
+        FakeWebDriverServer server = null;
+        Browser browser;
+        Supplier<WebDriver> sessions;
+        if (standIn) {
+            server = new FakeWebDriverServer()
+                .withElement(By.name("q"), "textarea", "", true)
+                .withElement(By.name("btnK"), "input", "", true)
+                .withTitle(query + " - Google Search")
+                .start();
+            FakeWebDriverServer app = server;
+            browser = Browser.CHROME;
+            sessions = () -> new RemoteWebDriver(app.getUrl(), new ChromeOptions());
+        } else {
+            browser = WebDriverConfig.getDefaultBrowser();
+            sessions = WebDriverConfig.sessionFactory(browser);
+        }
+        try {
+            LoadReport report = LoadRunner.fromConfig("googleSearch", browser, sessions)
+                .run(driver -> new GooglePage(driver)
+                    .open()
+                    .searchFor(query)
+                    .verifySearchResults(query));
+            Assertions.assertEquals(0, report.getFailed(), "Failed journeys: " + report.getFailures());
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+}
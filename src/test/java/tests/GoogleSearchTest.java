@@ -15,9 +15,9 @@ public class GoogleSearchTest extends BaseTest {
     @EnumSource(value=Browser.class, names={"CHROME"})
     void testBasicSearch(Browser browser) {
         initDriver(browser);
-        driver.get("https://www.google.com");
         googlePage = new GooglePage(driver);
         googlePage
+            .open()
             .searchFor("Selenium WebDriver")
             .verifySearchResults("Selenium WebDriver");
     }
@@ -1,6 +1,9 @@
 package tests.UseCase9;
 
+import config.FixtureType;
+import config.UsesFixtures;
 
+@UsesFixtures(FixtureType.ACTIVE_MP_ACTIVE_CONTRACT)
 public class ActiveMPWithActiveContract {
     
 }
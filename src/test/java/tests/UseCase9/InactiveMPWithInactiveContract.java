@@ -1,5 +1,9 @@
 package tests.UseCase9;
 
+import config.FixtureType;
+import config.UsesFixtures;
+
+@UsesFixtures(FixtureType.INACTIVE_MP_INACTIVE_CONTRACT)
 public class InactiveMPWithInactiveContract {
     
 }